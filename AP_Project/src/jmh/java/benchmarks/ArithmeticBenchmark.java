@@ -0,0 +1,138 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Both operands have `digits` digits, the divisor half as many.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int digits;
+
+    @Param({"POSITIVE", "MIXED", "NEGATIVE"})
+    public SignMix signs;
+
+    private BigNumber a;
+    private BigNumber b;
+    private BigNumber divisor;
+    private BigNumber aNeighbour;
+
+    private BigInteger x;
+    private BigInteger y;
+    private BigInteger yDivisor;
+    private BigInteger xNeighbour;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(digits);
+        String first = Operands.digits(random, digits);
+        String second = Operands.digits(random, digits);
+        String third = Operands.digits(random, Math.max(digits / 2, 1));
+
+        String s1 = Operands.signed(first, signs.firstNegative);
+        String s2 = Operands.signed(second, signs.secondNegative);
+        String s3 = Operands.signed(third, signs.secondNegative);
+        String s4 = Operands.signed(Operands.lastDigitChanged(first), signs.firstNegative);
+
+        a = BigNumber.fromString(s1);
+        b = BigNumber.fromString(s2);
+        divisor = BigNumber.fromString(s3);
+        aNeighbour = BigNumber.fromString(s4);
+
+        x = new BigInteger(s1);
+        y = new BigInteger(s2);
+        yDivisor = new BigInteger(s3);
+        xNeighbour = new BigInteger(s4);
+    }
+
+    //// add
+    @Benchmark
+    public BigNumber addBigNumber() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public BigInteger addBigInteger() {
+        return x.add(y);
+    }
+
+    //// subtract
+    @Benchmark
+    public BigNumber subtractBigNumber() {
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public BigInteger subtractBigInteger() {
+        return x.subtract(y);
+    }
+
+    //// multiply
+    @Benchmark
+    public BigNumber multiplyBigNumber() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public BigInteger multiplyBigInteger() {
+        return x.multiply(y);
+    }
+
+    //// square
+    @Benchmark
+    public BigNumber squareBigNumber() {
+        return a.square();
+    }
+
+    @Benchmark
+    public BigNumber multiplySelfBigNumber() {
+        return a.multiply(a);
+    }
+
+    @Benchmark
+    public BigInteger multiplySelfBigInteger() {
+        return x.multiply(x);
+    }
+
+    //// divide
+    @Benchmark
+    public BigNumber divideBigNumber() {
+        return a.divide(divisor);
+    }
+
+    @Benchmark
+    public BigInteger divideBigInteger() {
+        return x.divide(yDivisor);
+    }
+
+    //// compareTo
+    @Benchmark
+    public int compareToBigNumber() {
+        return a.compareTo(aNeighbour);
+    }
+
+    @Benchmark
+    public int compareToBigInteger() {
+        return x.compareTo(xNeighbour);
+    }
+}
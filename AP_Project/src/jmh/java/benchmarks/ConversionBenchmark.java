@@ -0,0 +1,89 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int digits;
+
+    // only the sign of the first operand applies here
+    @Param({"POSITIVE", "NEGATIVE"})
+    public SignMix signs;
+
+    private String text;
+    private BigNumber a;
+    private BigInteger x;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        text = Operands.signed(Operands.digits(new Random(digits), digits), signs.firstNegative);
+        a = BigNumber.fromString(text);
+        x = new BigInteger(text);
+        bytes = x.toByteArray();
+    }
+
+    @Benchmark
+    public BigNumber fromStringBigNumber() {
+        return BigNumber.fromString(text);
+    }
+
+    @Benchmark
+    public BigInteger fromStringBigInteger() {
+        return new BigInteger(text);
+    }
+
+    // BigNumber caches its decimal form; negate() shares the limbs but not the cache
+    @Benchmark
+    public String toStringBigNumber() {
+        return a.negate().toString();
+    }
+
+    @Benchmark
+    public String toStringBigInteger() {
+        return x.toString();
+    }
+
+    @Benchmark
+    public BigInteger toBigInteger() {
+        return a.toBigInteger();
+    }
+
+    @Benchmark
+    public BigNumber fromBigInteger() {
+        return BigNumber.fromBigInteger(x);
+    }
+
+    @Benchmark
+    public BigNumber fromTwosComplement() {
+        return BigNumber.fromTwosComplement(bytes);
+    }
+
+    // the way through text that the conversions replace
+    @Benchmark
+    public BigInteger toBigIntegerViaString() {
+        return new BigInteger(a.negate().toString());
+    }
+}
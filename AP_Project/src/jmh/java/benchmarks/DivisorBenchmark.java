@@ -0,0 +1,67 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import bignumbers.Divisor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Remainder of a 2 * `digits` digit dividend by a fixed `digits` digit divisor:
+// a precomputed Divisor against BigNumber.remainder and BigInteger.remainder.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DivisorBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int digits;
+
+    private BigNumber a;
+    private BigNumber d;
+    private Divisor divisor;
+    private BigInteger x;
+    private BigInteger y;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(digits);
+        String dividend = Operands.digits(random, 2 * digits);
+        String div = Operands.digits(random, digits);
+
+        a = BigNumber.fromString(dividend);
+        d = BigNumber.fromString(div);
+        divisor = BigNumber.divisor(d);
+        x = new BigInteger(dividend);
+        y = new BigInteger(div);
+    }
+
+    @Benchmark
+    public BigNumber remainderDivisor() {
+        return divisor.remainder(a);
+    }
+
+    @Benchmark
+    public BigNumber remainderBigNumber() {
+        return a.remainder(d);
+    }
+
+    @Benchmark
+    public BigInteger remainderBigInteger() {
+        return x.remainder(y);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A sum of `terms` products of `digits` digit operands with mixed signs:
+// BigNumber.dotProduct and a multiplyAdd chain against multiply-then-add
+// with BigNumber and BigInteger.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DotProductBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int digits;
+
+    @Param({"1000"})
+    public int terms;
+
+    private BigNumber[] a;
+    private BigNumber[] b;
+    private BigInteger[] x;
+    private BigInteger[] y;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(digits);
+        a = new BigNumber[terms];
+        b = new BigNumber[terms];
+        x = new BigInteger[terms];
+        y = new BigInteger[terms];
+        for (int i = 0; i < terms; i++) {
+            String s = Operands.signed(Operands.digits(random, digits), random.nextBoolean());
+            String t = Operands.digits(random, digits);
+            a[i] = BigNumber.fromString(s);
+            b[i] = BigNumber.fromString(t);
+            x[i] = new BigInteger(s);
+            y[i] = new BigInteger(t);
+        }
+    }
+
+    @Benchmark
+    public BigNumber dotProduct() {
+        return BigNumber.dotProduct(a, b);
+    }
+
+    @Benchmark
+    public BigNumber multiplyAddChain() {
+        BigNumber sum = BigNumber.ZERO;
+        for (int i = 0; i < terms; i++)
+            sum = a[i].multiplyAdd(b[i], sum);
+        return sum;
+    }
+
+    @Benchmark
+    public BigNumber multiplyThenAdd() {
+        BigNumber sum = BigNumber.ZERO;
+        for (int i = 0; i < terms; i++)
+            sum = sum.add(a[i].multiply(b[i]));
+        return sum;
+    }
+
+    @Benchmark
+    public BigInteger multiplyThenAddBigInteger() {
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < terms; i++)
+            sum = sum.add(x[i].multiply(y[i]));
+        return sum;
+    }
+}
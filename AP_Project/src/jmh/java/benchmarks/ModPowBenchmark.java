@@ -0,0 +1,75 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import bignumbers.ModularContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// a^e mod m with an odd `bits` bit modulus and an exponent as long as the
+// modulus, as in RSA: BigNumber.modPow (a context per call), a reused
+// ModularContext with pow and powConstantTime, against BigInteger.modPow.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModPowBenchmark {
+
+    @Param({"1024", "2048", "4096"})
+    public int bits;
+
+    private BigNumber a;
+    private BigNumber e;
+    private BigNumber m;
+    private ModularContext context;
+    private BigInteger x;
+    private BigInteger y;
+    private BigInteger z;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(bits);
+        z = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+        x = new BigInteger(bits, random).mod(z);
+        y = new BigInteger(bits, random);
+
+        a = BigNumber.fromString(x.toString());
+        e = BigNumber.fromString(y.toString());
+        m = BigNumber.fromString(z.toString());
+        context = new ModularContext(m);
+    }
+
+    @Benchmark
+    public BigNumber modPowBigNumber() {
+        return a.modPow(e, m);
+    }
+
+    @Benchmark
+    public BigNumber powContext() {
+        return context.pow(a, e);
+    }
+
+    @Benchmark
+    public BigNumber powConstantTimeContext() {
+        return context.powConstantTime(a, e);
+    }
+
+    @Benchmark
+    public BigInteger modPowBigInteger() {
+        return x.modPow(y, z);
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import java.util.Random;
+
+// Reproducible random decimal operands, shared by the benchmarks.
+final class Operands {
+
+    private Operands() {
+    }
+
+    static String digits(Random random, int length) {
+        char[] chars = new char[length];
+        chars[0] = (char) ('1' + random.nextInt(9));
+        for (int i = 1; i < length; i++)
+            chars[i] = (char) ('0' + random.nextInt(10));
+        return new String(chars);
+    }
+
+    static String signed(String digits, boolean negative) {
+        return negative ? "-" + digits : digits;
+    }
+
+    // same length, differing only in the last digit, so a comparison has to scan everything
+    static String lastDigitChanged(String digits) {
+        char[] chars = digits.toCharArray();
+        int last = chars.length - 1;
+        chars[last] = chars[last] == '9' ? '8' : (char) (chars[last] + 1);
+        return new String(chars);
+    }
+}
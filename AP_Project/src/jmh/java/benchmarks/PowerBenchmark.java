@@ -0,0 +1,73 @@
+package benchmarks;
+
+import bignumbers.BigNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// pow(exponent) of a `digits` digit base against BigInteger.pow. The base
+// whose lower half is zeros shows the decimal shift pow applies to them.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowerBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int digits;
+
+    @Param({"2", "10", "100"})
+    public int exponent;
+
+    private BigNumber a;
+    private BigNumber tens;
+    private BigInteger x;
+    private BigInteger xTens;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(digits);
+        String base = Operands.digits(random, digits);
+        String withZeros = base.substring(0, Math.max(digits / 2, 1)) + new String(new char[digits / 2]).replace('\0', '0');
+
+        a = BigNumber.fromString(base);
+        tens = BigNumber.fromString(withZeros);
+        x = new BigInteger(base);
+        xTens = new BigInteger(withZeros);
+    }
+
+    //// pow
+    @Benchmark
+    public BigNumber powBigNumber() {
+        return a.pow(exponent);
+    }
+
+    @Benchmark
+    public BigInteger powBigInteger() {
+        return x.pow(exponent);
+    }
+
+    @Benchmark
+    public BigNumber powTrailingZerosBigNumber() {
+        return tens.pow(exponent);
+    }
+
+    @Benchmark
+    public BigInteger powTrailingZerosBigInteger() {
+        return xTens.pow(exponent);
+    }
+}
@@ -0,0 +1,16 @@
+package benchmarks;
+
+// signs of the first and the second operand
+public enum SignMix {
+    POSITIVE(false, false),
+    MIXED(false, true),
+    NEGATIVE(true, true);
+
+    final boolean firstNegative;
+    final boolean secondNegative;
+
+    SignMix(boolean firstNegative, boolean secondNegative) {
+        this.firstNegative = firstNegative;
+        this.secondNegative = secondNegative;
+    }
+}
@@ -0,0 +1,310 @@
+package batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+// Runs a file of jobs (see Job) concurrently and writes one line per job,
+// the result or "error: <message>", strictly in input order.
+// Jobs are read, submitted and written as a pipeline like RsaFileCipher: once
+// maxInFlight jobs are read but not yet written, reading waits for the oldest
+// one, so a slow job holds back the input instead of letting results pile up,
+// and the memory use does not depend on the length of the file.
+//
+// The jobs run on a fixed thread pool, or with withVirtualThreads on a virtual
+// thread each, where the runtime has them (Java 21, looked up by reflection
+// since the build targets 11); maxInFlight then is the only bound. With verify
+// every job is also computed with BigInteger and differences are counted as
+// mismatches. The latency of a job is the time BigNumber takes to parse the
+// operands, compute and convert the result to a String.
+public final class BatchEngine {
+
+    // mismatches described in the report, the others are only counted
+    private static final int MISMATCH_DETAILS = 20;
+
+    private final int threads;
+    private final int maxInFlight;
+    private final boolean virtualThreads;
+
+    public BatchEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchEngine(int threads) {
+        this(threads, 4 * threads);
+    }
+
+    public BatchEngine(int threads, int maxInFlight) {
+        this(threads, maxInFlight, false);
+    }
+
+    private BatchEngine(int threads, int maxInFlight, boolean virtualThreads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be positive");
+
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+        this.virtualThreads = virtualThreads;
+    }
+
+    // falls back to a pool of one thread per processor where virtual threads are missing
+    public static BatchEngine withVirtualThreads(int maxInFlight) {
+        return new BatchEngine(Runtime.getRuntime().availableProcessors(), maxInFlight, true);
+    }
+
+    //// pipeline
+    public Report run(Path jobs, Path results, final boolean verify) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+
+        ExecutorService executor = null;
+        if (virtualThreads)
+            executor = newVirtualThreadExecutor();
+        report.executor = executor != null ? "virtual threads" : threads == 1 ? "1 thread" : threads + " threads";
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(threads);
+
+        Deque<Future<Outcome>> pending = new ArrayDeque<>();
+        try (BufferedReader in = Files.newBufferedReader(jobs, StandardCharsets.US_ASCII);
+             BufferedWriter out = Files.newBufferedWriter(results, StandardCharsets.US_ASCII)) {
+            long line = 0;
+            String text;
+            while ((text = in.readLine()) != null) {
+                line++;
+                Job parsed;
+                try {
+                    parsed = Job.parse(text, line);
+                } catch (IllegalArgumentException e) {
+                    parsed = null;
+                    pending.add(done(Outcome.malformed(line, e.getMessage())));
+                }
+                final Job job = parsed;
+                if (job != null) {
+                    pending.add(executor.submit(new Callable<Outcome>() {
+                        @Override
+                        public Outcome call() {
+                            return evaluate(job, verify);
+                        }
+                    }));
+                }
+                // malformed lines count too, or a long run of them would queue without bound
+                while (pending.size() >= maxInFlight)
+                    write(out, pending.remove(), report);
+            }
+            while (!pending.isEmpty())
+                write(out, pending.remove(), report);
+        } finally {
+            executor.shutdownNow();
+        }
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor, or null before Java 21
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Future<Outcome> done(Outcome outcome) {
+        FutureTask<Outcome> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, outcome);
+        task.run();
+        return task;
+    }
+
+    private static void write(BufferedWriter out, Future<Outcome> result, Report report) throws IOException {
+        Outcome outcome;
+        try {
+            outcome = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+
+        out.write(outcome.text);
+        out.newLine();
+        report.add(outcome);
+    }
+
+    //// jobs
+    private static Outcome evaluate(Job job, boolean verify) {
+        Operation operation = job.getOperation();
+        String[] operands = job.getOperands();
+
+        long start = System.nanoTime();
+        String text;
+        boolean error = false;
+        try {
+            text = operation.compute(operands).toString();
+        } catch (RuntimeException e) {
+            text = "error: " + e.getMessage();
+            error = true;
+        }
+        long nanos = System.nanoTime() - start;
+
+        // an error on both sides is a match, whatever the messages
+        String expected = null;
+        if (verify) {
+            String reference;
+            try {
+                reference = operation.reference(operands).toString();
+            } catch (RuntimeException e) {
+                reference = null;
+            }
+            if (reference == null ? !error : error || !reference.equals(text))
+                expected = reference == null ? "an error" : reference;
+        }
+        return new Outcome(job.getLine(), operation.getName(), text, error, nanos, expected);
+    }
+
+    private static final class Outcome {
+        final long line;
+        final String operation;
+        final String text;
+        final boolean error;
+        final long nanos;
+        // the BigInteger result where it differs, else null
+        final String expected;
+
+        Outcome(long line, String operation, String text, boolean error, long nanos, String expected) {
+            this.line = line;
+            this.operation = operation;
+            this.text = text;
+            this.error = error;
+            this.nanos = nanos;
+            this.expected = expected;
+        }
+
+        static Outcome malformed(long line, String message) {
+            return new Outcome(line, null, "error: " + message, true, -1, null);
+        }
+    }
+
+    //// results
+    public static final class Report {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final List<String> mismatchDetails = new ArrayList<>();
+        private String executor;
+        private long jobs;
+        private long errors;
+        private long malformed;
+        private long mismatches;
+        private long nanos;
+
+        Report() {
+        }
+
+        private void add(Outcome outcome) {
+            if (outcome.operation == null) {
+                malformed++;
+                return;
+            }
+            jobs++;
+            if (outcome.error)
+                errors++;
+            latencies.record(outcome.nanos);
+            if (outcome.expected != null) {
+                mismatches++;
+                if (mismatchDetails.size() < MISMATCH_DETAILS)
+                    mismatchDetails.add("line " + outcome.line + ": " + outcome.operation + " gave "
+                            + abbreviate(outcome.text) + ", expected " + abbreviate(outcome.expected));
+            }
+        }
+
+        private static String abbreviate(String s) {
+            if (s.length() <= 60)
+                return s;
+            return s.substring(0, 25) + "..." + s.substring(s.length() - 25) + " (" + s.length() + " chars)";
+        }
+
+        public long getJobs() {
+            return jobs;
+        }
+
+        // jobs whose operation threw, e.g. a division by zero; with verify these may still match
+        public long getErrors() {
+            return errors;
+        }
+
+        // lines that are no valid job; they are not counted as jobs
+        public long getMalformed() {
+            return malformed;
+        }
+
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        // the first mismatches, by line
+        public List<String> getMismatchDetails() {
+            return Collections.unmodifiableList(mismatchDetails);
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double jobsPerSecond() {
+            return nanos == 0 ? 0 : jobs * 1e9 / nanos;
+        }
+
+        // latency in nanoseconds that the fraction p of the jobs stayed within, to an eighth
+        public long latencyPercentile(double p) {
+            return latencies.percentile(p);
+        }
+
+        public long maxLatency() {
+            return latencies.getMax();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d jobs in %.3f s on %s (%.1f jobs/s), %d errors, %d malformed lines, %d mismatches%n",
+                    jobs, nanos / 1e9, executor, jobsPerSecond(), errors, malformed, mismatches));
+            sb.append(String.format("latency: mean %s, p50 %s, p90 %s, p99 %s, p99.9 %s, max %s",
+                    millis((long) latencies.mean()), millis(latencyPercentile(0.5)), millis(latencyPercentile(0.9)),
+                    millis(latencyPercentile(0.99)), millis(latencyPercentile(0.999)), millis(maxLatency())));
+            for (String detail : mismatchDetails)
+                sb.append(System.lineSeparator()).append(detail);
+            if (mismatches > mismatchDetails.size())
+                sb.append(System.lineSeparator()).append("... ").append(mismatches - mismatchDetails.size()).append(" more");
+            return sb.toString();
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3f ms", nanos / 1e6);
+        }
+    }
+}
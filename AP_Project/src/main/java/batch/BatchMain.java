@@ -0,0 +1,111 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+// Command line front end of BatchEngine:
+//
+//   java batch.BatchMain [--threads N | --virtual] [--in-flight N] [--verify] <jobs> <results>
+//   java batch.BatchMain generate <jobs> <count> <max digits> [seed]
+//
+// The first form runs a job file and prints the report; the exit status is 1
+// if any result differed from BigInteger, else 0. The second writes random jobs
+// over all operations, the way test.Main draws its operands, for regression
+// sweeps.
+public class BatchMain {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("generate")) {
+            if (args.length < 4 || args.length > 5)
+                usage();
+            long seed = args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime();
+            generate(Paths.get(args[1]), Long.parseLong(args[2]), Integer.parseInt(args[3]), new Random(seed));
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxInFlight = -1;
+        boolean virtual = false;
+        boolean verify = false;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--in-flight":
+                    maxInFlight = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--virtual":
+                    virtual = true;
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                default:
+                    usage();
+            }
+        }
+        if (args.length - i != 2)
+            usage();
+
+        BatchEngine engine;
+        if (virtual)
+            engine = BatchEngine.withVirtualThreads(maxInFlight > 0 ? maxInFlight : 1024);
+        else
+            engine = new BatchEngine(threads, maxInFlight > 0 ? maxInFlight : 4 * threads);
+
+        BatchEngine.Report report = engine.run(Paths.get(args[i]), Paths.get(args[i + 1]), verify);
+        System.out.println(report);
+        if (report.getMismatches() != 0)
+            System.exit(1);
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            usage();
+        return args[i];
+    }
+
+    private static void usage() {
+        System.err.println("usage: java batch.BatchMain [--threads N | --virtual] [--in-flight N] [--verify] <jobs> <results>");
+        System.err.println("       java batch.BatchMain generate <jobs> <count> <max digits> [seed]");
+        System.exit(2);
+    }
+
+    //// random jobs
+    private static void generate(Path jobs, long count, int maxDigits, Random random) throws IOException {
+        Operation[] operations = Operation.values();
+        try (BufferedWriter out = Files.newBufferedWriter(jobs, StandardCharsets.US_ASCII)) {
+            for (long n = 0; n < count; n++) {
+                Operation operation = operations[random.nextInt(operations.length)];
+                out.write(operation.getName());
+                for (int k = 0; k < operation.getArity(); k++) {
+                    out.write(' ');
+                    if (operation == Operation.POW && k == 1)
+                        out.write(Integer.toString(random.nextInt(20)));
+                    else if (operation == Operation.POW || operation == Operation.MODPOW)
+                        out.write(number(random, Math.min(maxDigits, 50)));
+                    else
+                        out.write(number(random, maxDigits));
+                }
+                out.newLine();
+            }
+        }
+    }
+
+    private static String number(Random random, int maxDigits) {
+        int digits = 1 + random.nextInt(maxDigits);
+        StringBuilder sb = new StringBuilder(digits + 1);
+        if (random.nextBoolean())
+            sb.append('-');
+        for (int i = 0; i < digits; i++)
+            sb.append((char) ('0' + random.nextInt(10)));
+        return sb.toString();
+    }
+}
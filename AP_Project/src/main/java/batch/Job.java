@@ -0,0 +1,43 @@
+package batch;
+
+// One line of a job file: an operation and its operands, separated by
+// whitespace. Blank lines and lines starting with '#' are no jobs.
+final class Job {
+
+    private final long line;
+    private final Operation operation;
+    private final String[] operands;
+
+    private Job(long line, Operation operation, String[] operands) {
+        this.line = line;
+        this.operation = operation;
+        this.operands = operands;
+    }
+
+    // null for a blank line or a comment
+    static Job parse(String text, long line) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#')
+            return null;
+
+        String[] tokens = trimmed.split("\\s+");
+        Operation operation = Operation.forName(tokens[0]);
+        if (tokens.length - 1 != operation.getArity())
+            throw new IllegalArgumentException(operation.getName() + " takes " + operation.getArity() + " operands");
+        String[] operands = new String[operation.getArity()];
+        System.arraycopy(tokens, 1, operands, 0, operands.length);
+        return new Job(line, operation, operands);
+    }
+
+    long getLine() {
+        return line;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    String[] getOperands() {
+        return operands;
+    }
+}
@@ -0,0 +1,67 @@
+package batch;
+
+// Latencies in nanoseconds, counted in logarithmic buckets so that a run of
+// any length takes the same memory: below 16 ns every value has a bucket of its
+// own, above that every power of two is split into eight buckets, so a
+// percentile is off by at most an eighth. Not thread safe; the engine records
+// from the thread that writes the results.
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts[index(nanos)]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    // the smallest recorded bucket bound that at least the fraction p of the values do not exceed
+    long percentile(double p) {
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    private static int index(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS)
+            return (int) nanos;
+        int e = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (e - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return e * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+        int e = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (e - SUB_BITS)) - 1;
+    }
+}
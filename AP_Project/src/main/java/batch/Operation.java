@@ -0,0 +1,152 @@
+package batch;
+
+import bignumbers.BigNumber;
+
+import java.math.BigInteger;
+
+// The operations of a job file, named in lower case there ("modpow 3 100 7").
+// Every operation is implemented twice: with BigNumber, which is what a batch
+// measures, and with BigInteger as the reference for verification. Exponents
+// of pow are ints; everything else is an arbitrary integer.
+public enum Operation {
+    ADD(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).add(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).add(new BigInteger(a[1]));
+        }
+    },
+    SUBTRACT(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).subtract(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).subtract(new BigInteger(a[1]));
+        }
+    },
+    MULTIPLY(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).multiply(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).multiply(new BigInteger(a[1]));
+        }
+    },
+    DIVIDE(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).divide(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).divide(new BigInteger(a[1]));
+        }
+    },
+    REMAINDER(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).remainder(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).remainder(new BigInteger(a[1]));
+        }
+    },
+    MOD(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).mod(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).mod(new BigInteger(a[1]));
+        }
+    },
+    POW(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).pow(Integer.parseInt(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).pow(Integer.parseInt(a[1]));
+        }
+    },
+    GCD(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).gcd(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).gcd(new BigInteger(a[1]));
+        }
+    },
+    MODPOW(3) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).modPow(number(a[1]), number(a[2]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).modPow(new BigInteger(a[1]), new BigInteger(a[2]));
+        }
+    },
+    MODINVERSE(2) {
+        @Override
+        BigNumber compute(String[] a) {
+            return number(a[0]).modInverse(number(a[1]));
+        }
+
+        @Override
+        BigInteger reference(String[] a) {
+            return new BigInteger(a[0]).modInverse(new BigInteger(a[1]));
+        }
+    };
+
+    private final int arity;
+
+    Operation(int arity) {
+        this.arity = arity;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+
+    abstract BigNumber compute(String[] operands);
+
+    abstract BigInteger reference(String[] operands);
+
+    public static Operation forName(String name) {
+        for (Operation operation : values()) {
+            if (operation.getName().equals(name))
+                return operation;
+        }
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+
+    private static BigNumber number(String s) {
+        return BigNumber.fromString(s);
+    }
+}
@@ -0,0 +1,31 @@
+package bignumbers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for one step of the multiplication recursion or one division
+// dispatch (see Metrics); off by default since a single large product
+// produces thousands of them
+@Name("bignumbers.AlgorithmStep")
+@Label("BigNumber Algorithm Step")
+@Category("BigNumber")
+@Description("A multiplication recursion step or a division, with the tier that handled it")
+@Enabled(false)
+final class AlgorithmStepEvent extends jdk.jfr.Event {
+
+    @Label("Tier")
+    String tier;
+
+    @Label("Depth")
+    @Description("Recursion depth of a multiplication step, 0 at the top")
+    int depth;
+
+    @Label("Left Limbs")
+    int leftLimbs;
+
+    @Label("Right Limbs")
+    int rightLimbs;
+}
@@ -1,514 +1,678 @@
-package bignumbers;
-
-import java.util.Arrays;
-
-public class BigNumber extends Number implements Comparable<BigNumber> {
-
-    private static final boolean POSITIVE = true;
-    private static final boolean NEGATIVE = false;
-
-    public static final BigNumber ZERO = new BigNumber(new byte[] {0}, BigNumber.POSITIVE);
-    public static final BigNumber ONE = new BigNumber(new byte[] {1}, BigNumber.POSITIVE);
-    public static final BigNumber NEGATIVE_ONE = new BigNumber(new byte[] {1}, BigNumber.NEGATIVE);
-
-    private final boolean sign;
-
-    private final byte[] digits;
-
-    private final String number;
-
-    //// Static Factory Methods
-    public static BigNumber fromString(String val) {
-        return new BigNumber(val);
-    }
-
-    public static BigNumber fromLong(long val) {
-        if (val == 0)
-            return ZERO;
-        if (val == 1)
-            return ONE;
-        if (val == -1)
-            return NEGATIVE_ONE;
-
-        boolean sign;
-        if (val < 0)
-            sign = BigNumber.NEGATIVE;
-        else
-            sign = BigNumber.POSITIVE;
-
-        val = Math.abs(val);
-        int length = String.valueOf(val).length();
-        byte[] digits = new byte[length];
-
-        for (int i = 0; i < length; i++) {
-            digits[i] = (byte) (val % 10);
-            val /= 10;
-        }
-
-        return new BigNumber(digits, sign);
-    }
-
-    public static BigNumber fromByteArray(byte[] digits, Sign sign) {
-        if (digits == null || sign == null)
-            throw new NullPointerException();
-
-        for (byte b : digits) {
-            if (b > 9)
-                throw new IllegalArgumentException();
-        }
-
-        if (sign == Sign.POSITIVE)
-            return new BigNumber(digits, BigNumber.POSITIVE);
-        else
-            return new BigNumber(digits, BigNumber.NEGATIVE);
-    }
-
-    public static BigNumber fromByteArray(byte[] digits) {
-        return fromByteArray(digits, Sign.POSITIVE);
-    }
-
-    public static BigNumber fromIntArray(int[] digits, Sign sign) {
-        if (digits == null || sign == null)
-            throw new NullPointerException();
-
-        byte[] byteDigits = new byte[digits.length];
-        for (int i = 0; i < digits.length; i++) {
-            if (digits[i] > 9)
-                throw new IllegalArgumentException();
-
-            byteDigits[i] = (byte) digits[i];
-        }
-
-        if (sign == Sign.POSITIVE)
-            return new BigNumber(byteDigits, BigNumber.POSITIVE);
-        else
-            return new BigNumber(byteDigits, BigNumber.NEGATIVE);
-    }
-
-    public static BigNumber fromIntArray(int[] digits) {
-        return fromIntArray(digits, Sign.POSITIVE);
-    }
-
-    
-    //// Constructors
-    private BigNumber(byte[] digits, boolean sign){
-        this.digits = digits;
-        this.sign = sign;
-        StringBuilder builder = new StringBuilder();
-        builder.append(sign ? "" : "-");
-
-        for (int i = digits.length - 1; i >= 0; i--){
-            builder.append(digits[i]);
-        }
-
-        this.number = builder.toString();
-    }
-
-    private BigNumber(String val) {
-        if (val == null)
-            throw new NullPointerException();
-
-        val = val.trim();
-        if (val.length() == 0)
-            throw new NumberFormatException("Zero length BigNumber");
-
-        boolean sign;
-
-
-        if (val.charAt(0) == '-') {
-            val = val.substring(1);
-            sign = BigNumber.NEGATIVE;
-        }
-        else if (val.charAt(0) == '+') {
-            val = val.substring(1);
-            sign = BigNumber.POSITIVE;
-        }
-        else {
-            sign = BigNumber.POSITIVE;
-        }
-
-        if (val.length() == 0)
-            throw new NumberFormatException("Zero length BigNumber");
-
-        if (!val.matches("\\d+")) {
-            StringBuilder message = new StringBuilder("For input string: \"");
-            int charIndex = 0;
-            for (int i = 0; i < val.length(); i++) {
-                if (!("" + val.charAt(i)).matches("\\d")) {
-                    charIndex = i;
-                    break;
-                }
-            }
-
-            String prb = val.substring(Math.max(charIndex - 4, 0),
-                    Math.min(charIndex + 4, val.length()));
-
-            message.append(prb).append("\"");
-
-            throw new NumberFormatException(message.toString());
-        }
-
-
-        // remove leading zeros like 00091
-        val = val.replaceAll("^0+","");
-        if(val.length() == 0){
-            val = "0";
-            sign = BigNumber.POSITIVE;
-        }
-
-
-        this.sign = sign;
-
-        int length = val.length();
-        digits = new byte[length];
-        StringBuilder builder = new StringBuilder();
-        builder.append(sign ? "" : "-");
-        for (int i = 0; i < length; i++) {
-            digits[i] = (byte) (val.charAt(length - (i + 1)) - '0');
-            builder.append(val.charAt(i));
-        }
-        this.number = builder.toString();
-
-
-    }
-
-
-    //// add, subtract, multiply & divide operation methods
-    public BigNumber add(BigNumber val) {
-        StringBuilder builder = new StringBuilder();
-        int p;
-        int carry = 0;
-        boolean sign;
-        if(this.sign == val.sign){
-            sign = this.sign;
-            for(int i = 0, j = 0; i < digits.length || j < val.digits.length; i++, j++){
-                p = (i < digits.length) ? this.digits[i] : 0;
-                p+= (j < val.digits.length) ? val.digits[j] : 0;
-                p+= carry;
-                builder.append(p%10);
-                carry = p/10;
-            }
-            if(carry > 0){
-                builder.append(carry);
-            }
-            if(this.sign == BigNumber.NEGATIVE){
-                builder.append('-');
-            }
-            return new BigNumber(builder.reverse().toString());
-        }
-
-
-        // different signs
-
-
-        BigNumber c1 = this.abs();
-        BigNumber c2 = val.abs();
-        int cmp = c1.compareTo(c2);
-        if (cmp == 0)
-            return ZERO;
-
-        BigNumber tmp;
-        if (cmp > 0) {
-            sign = this.sign;
-        } else {
-            sign = val.sign;
-            tmp = c1;
-            c1 = c2;
-            c2 = tmp;
-        }
-        int len1 = c1.digits.length;
-        int len2 = c2.digits.length;
-
-        int sub;
-        int cr = 0;
-        byte[] c1digits = c1.digits.clone();
-
-        for (int i = 0, j = 0; i < len1 || j < len2; i++, j++) {
-            if (j < len2)
-                sub = (c1.digits[i] - c2.digits[j] + cr);
-            else {
-                sub = c1.digits[i] + cr;
-            }
-
-            if (sub < 0) {
-                sub += 10;
-                cr = -1;
-            }
-            else cr = 0;
-
-            c1digits[i] = (byte) sub;
-        }
-
-        int count  = 0;
-        for(int i=c1digits.length-1;i>=0;i--){
-            if(c1digits[i] != 0){
-                break;
-            }
-            count ++;
-        }
-        return new BigNumber(Arrays.copyOfRange(c1digits,0,c1digits.length-count),sign);
-
-    }
-
-    public BigNumber subtract(BigNumber val) {
-        return this.add(new BigNumber(val.digits,!val.sign));
-    }
-
-    public BigNumber multiply(BigNumber val) {
-        if (this.compareTo(ZERO) == 0 || val.compareTo(ZERO) == 0)
-            return ZERO;
-
-        if (this.compareTo(ONE) == 0)
-            return val;
-        if (val.compareTo(ONE) == 0)
-            return this;
-
-        if (this.compareTo(NEGATIVE_ONE) == 0)
-            return new BigNumber(val.digits, !val.sign);
-        if (val.compareTo(NEGATIVE_ONE) == 0)
-            return new BigNumber(digits, !sign);
-
-        boolean resultSign = (sign == val.sign)? BigNumber.POSITIVE : BigNumber.NEGATIVE;
-        String result = (resultSign == NEGATIVE ? "-" : "") +
-                multiplyAlgorithm(this.abs().toString(), val.abs().toString());
-        return new BigNumber(result);
-
-    }
-
-    private String multiplyAlgorithm(String x, String y) {
-        //base case
-        if (x.length() < 5 && y.length() < 5) {
-            int xInt = Integer.parseInt(x);
-            int yInt = Integer.parseInt(y);
-
-            return Integer.toString(xInt * yInt);
-        }
-
-        //removing leading zeros
-        x = x.replaceAll("^0+","");
-        y = y.replaceAll("^0+","");
-        x = x.length() == 0 ? "0" : x;
-        y = y.length() == 0 ? "0" : y;
-
-        if (x.equals("0")) return "0";
-        if (y.equals("0")) return "0";
-
-        int lenX = x.length(); // 1234 56789 len 9
-        int lenY = y.length(); // 0000 00123 len 3
-
-        int m;
-        String a, b, c, d;
-        m = Math.max(lenX, lenY)/2 + 1;
-        int posX = lenX - m;
-        int posY = lenY - m;
-
-        if (posX > 0) {
-            a = x.substring(0, posX);
-            b = x.substring(posX);
-        } else {
-            a = "0";
-            b = x;
-        }
-        if (posY > 0) {
-            c = y.substring(0, posY);
-            d = y.substring(posY);
-        } else {
-            c = "0";
-            d = y;
-        }
-
-        StringBuilder zeros = new StringBuilder();
-        for (int i = 0; i < m; i++) {
-            zeros.append('0');
-        }
-        String Bm = zeros.toString();
-
-        // x*y = 10^(2m)*(ac == z2) + 10^(m)*((ad + bc) == z1) + (bd == z0)
-        String z2 = multiplyAlgorithm(a, c);
-        String z0 = multiplyAlgorithm(b, d);
-        String z1 = Util.subtract(multiplyAlgorithm(Util.sum(a, b), Util.sum(c, d)), Util.sum(z2, z0));
-
-        return Util.sum(Util.sum(z2 + Bm + Bm, z1 + Bm), z0);
-    }
-
-    public BigNumber divide(BigNumber val) {
-
-        // validation
-        if(val.compareTo(ZERO) == 0){
-            throw new ArithmeticException("Division by zero");
-        }
-        if(this.compareTo(ZERO) == 0)
-            return ZERO;
-
-
-        // abs
-        String a = this.toString().replaceAll("-","");
-        String b = val.toString().replaceAll("-","");
-
-
-        int cmp = Util.compare(a,b);
-        if(cmp < 0)
-            return ZERO;
-        if(cmp == 0){
-            return this.sign == val.sign ? ONE : NEGATIVE_ONE;
-        }
-
-        int zeroCount = a.length() - b.length();
-        String m = a.substring(0,b.length());
-        if(m.compareTo(b) < 0)
-            zeroCount--;
-        if(zeroCount < 0)
-            zeroCount = 0;
-
-
-        StringBuilder builder = new StringBuilder(zeroCount);
-        builder.append(b);
-        for(int i=0;i<zeroCount;i++){
-            builder.append("0");
-        }
-
-
-
-        // division
-        String q;
-        int bLen = builder.length();
-        int count=0;
-        StringBuilder builder2 = new StringBuilder();
-        String result = "";
-        for(int i=zeroCount;i>=0;i--){
-            count = 0;
-            q = builder.substring(0,bLen-zeroCount+i);
-            while (Util.compare(a,q) >= 0){
-                a = Util.subtract(a,q);
-                count++;
-            }
-
-            builder2.setLength(0);
-            builder2.append(count);
-
-            for(int j=0;j<i;j++){
-                builder2.append("0");
-            }
-
-            result = Util.sum(builder2.toString(),result);
-        }
-        if(this.sign != val.sign)
-            result = "-" + result;
-
-        return new BigNumber(result);
-
-    }
-
-    //// abs & BigNumber comparison methods
-    public BigNumber abs(){
-        return this.sign == BigNumber.POSITIVE ? this : new BigNumber(this.digits, BigNumber.POSITIVE);
-    }
-
-    public boolean isGreaterThan(BigNumber val){
-        return (this.compareTo(val) > 0);
-    }
-
-    @Override
-    public int compareTo(BigNumber val) {
-        if (val == null)
-            throw new NullPointerException();
-
-        if (sign == val.sign) {
-            if (sign == POSITIVE)
-                return this.compareDigits(val);
-            else
-                return val.compareDigits(this);
-        }
-
-        return sign == POSITIVE ? 1 : -1;
-    }
-
-    private int compareDigits(BigNumber val) {
-        if (digits.length == val.digits.length) {
-            for (int i = digits.length - 1; i >= 0; i--) {
-                if (digits[i] != val.digits[i])
-                    return digits[i] > val.digits[i] ? 1 : -1;
-            }
-            return 0;
-        }
-
-        return digits.length > val.digits.length ? 1 : -1;
-    }
-
-    @Override
-    public String toString() {
-        return this.number;
-    }
-
-    //// equals & hashCode
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        BigNumber bigNumber = (BigNumber) o;
-        return sign == bigNumber.sign &&
-                Arrays.equals(digits, bigNumber.digits);
-    }
-
-    @Override
-    public int hashCode() {
-        return number.hashCode();
-    }
-}
-
-class Util{
-    public static int compare(String s1, String s2){
-        int len1 = s1.length();
-        int len2 = s2.length();
-        if(len1 > len2) return 1;
-        if(len1 < len2) return -1;
-
-        return s1.compareTo(s2);
-
-    }
-    public static String sum(String s1, String s2){
-        int len1 = s1.length();
-        int len2 = s2.length();
-        StringBuilder builder = new StringBuilder();
-        int p=0,carry=0;
-        for(int i=len1-1,j=len2-1;i>=0 || j>=0;i--,j--){
-            p =  (i>=0) ? (s1.charAt(i) - '0') : 0;
-            p+=  (j>=0) ? (s2.charAt(j) - '0') : 0;
-            p+= carry;
-            carry = p/10;
-            builder.append(p%10);
-        }
-        if(carry > 0)
-            builder.append(carry);
-        return builder.reverse().toString();
-    }
-
-    // s1 must be greater than s2
-    public static String subtract(String s1, String s2){
-
-        s1 = s1.replaceAll("^0+","");
-        s2 = s2.replaceAll("^0+","");
-        s1 = s1.length() == 0 ? "0" : s1;
-        s2 = s2.length() == 0 ? "0" : s2;
-
-        int len1 = s1.length();
-        int len2 = s2.length();
-        StringBuilder builder = new StringBuilder();
-        int p=0,carry=0;
-        if(s1.equals(s2)) return  "0";
-        if(len2 == 1 && s2.charAt(0) == '0') return  s1;
-        for(int i=len1-1,j=len2-1;i>=0 || j>=0;i--,j--){
-            p = s1.charAt(i) - '0';
-            p-= (j >= 0) ? s2.charAt(j) - '0' : 0;
-            p+=carry;
-            carry = 0;
-            if(p<0){
-                carry = -1;
-                p+=10;
-            }
-            builder.append(p);
-        }
-        String result = builder.reverse().toString().replaceAll("^0+","");
-        return (result.equals("") ? "0" : result);
-    }
-}
+package bignumbers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+public class BigNumber extends Number implements Comparable<BigNumber> {
+
+    private static final boolean POSITIVE = true;
+    private static final boolean NEGATIVE = false;
+
+    // shared instances for small values, like Long.valueOf
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final BigNumber[] CACHE = new BigNumber[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++)
+            CACHE[i] = new BigNumber(i + CACHE_LOW);
+    }
+
+    public static final BigNumber ZERO = CACHE[-CACHE_LOW];
+    public static final BigNumber ONE = CACHE[1 - CACHE_LOW];
+    public static final BigNumber NEGATIVE_ONE = CACHE[-1 - CACHE_LOW];
+
+    private final boolean sign;
+
+    // base 10^9 limbs, least significant first (see Limbs), or null when the value
+    // fits in a long and is kept inline in small. Every value that fits is stored
+    // inline, so a value has exactly one representation.
+    private final int[] mag;
+    private final long small;
+
+    // decimal form and hash, built on first use
+    private transient String number;
+    private transient int hash;
+
+    //// Static Factory Methods
+    public static BigNumber fromString(String val) {
+        BigNumber result = DecimalParser.parse(val, 0, val.length());
+        // without sign, padding or leading zeros the input already is the decimal form
+        if (result.mag != null && val.length() == Limbs.digitCount(result.mag) + (result.sign ? 0 : 1))
+            result.number = val;
+        return result;
+    }
+
+    public static BigNumber fromString(CharSequence val, int start, int end) {
+        return DecimalParser.parse(val, start, end);
+    }
+
+    // reads up to the end of the stream, without building the whole text first
+    public static BigNumber fromReader(Reader reader) throws IOException {
+        if (reader == null)
+            throw new NullPointerException();
+        return DecimalParser.parse(reader);
+    }
+
+    // the file is memory-mapped and read as ASCII
+    public static BigNumber fromFile(Path path) throws IOException {
+        if (path == null)
+            throw new NullPointerException();
+        return DecimalParser.parse(path);
+    }
+
+    public static BigNumber fromLong(long val) {
+        if (val >= CACHE_LOW && val <= CACHE_HIGH)
+            return CACHE[(int) val - CACHE_LOW];
+        return new BigNumber(val);
+    }
+
+    public static BigNumber fromByteArray(byte[] digits, Sign sign) {
+        if (digits == null || sign == null)
+            throw new NullPointerException();
+
+        for (byte b : digits) {
+            if (b > 9 || b < 0)
+                throw new IllegalArgumentException();
+        }
+
+        int[] mag = Limbs.fromDecimalDigits(digits);
+        if (sign == Sign.POSITIVE)
+            return of(mag, BigNumber.POSITIVE);
+        else
+            return of(mag, BigNumber.NEGATIVE);
+    }
+
+    public static BigNumber fromByteArray(byte[] digits) {
+        return fromByteArray(digits, Sign.POSITIVE);
+    }
+
+    public static BigNumber fromIntArray(int[] digits, Sign sign) {
+        if (digits == null || sign == null)
+            throw new NullPointerException();
+
+        byte[] byteDigits = new byte[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            if (digits[i] > 9 || digits[i] < 0)
+                throw new IllegalArgumentException();
+
+            byteDigits[i] = (byte) digits[i];
+        }
+
+        return fromByteArray(byteDigits, sign);
+    }
+
+    public static BigNumber fromIntArray(int[] digits) {
+        return fromIntArray(digits, Sign.POSITIVE);
+    }
+
+    
+    //// Constructors
+    private BigNumber(long val){
+        this.mag = null;
+        this.small = val;
+        this.sign = val >= 0 ? BigNumber.POSITIVE : BigNumber.NEGATIVE;
+    }
+
+    // only for magnitudes that do not fit in a long, see of
+    private BigNumber(int[] mag, boolean sign){
+        this.mag = mag;
+        this.small = 0;
+        this.sign = sign;
+    }
+
+    // picks the representation; this is also where a negative zero disappears
+    private static BigNumber of(int[] mag, boolean sign){
+        boolean negative = sign == BigNumber.NEGATIVE;
+        if (Limbs.fitsInLong(mag, negative))
+            return fromLong(Limbs.toLong(mag, negative));
+        return new BigNumber(mag, sign);
+    }
+
+    //// add, subtract, multiply & divide operation methods
+    // each public method only adds the Metrics probe, which is compiled away unless enabled
+    public BigNumber add(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return sum(val);
+        return Metrics.begin(Metrics.Operation.ADD, this, val).end(sum(val));
+    }
+
+    public BigNumber subtract(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return difference(val);
+        return Metrics.begin(Metrics.Operation.SUBTRACT, this, val).end(difference(val));
+    }
+
+    public BigNumber multiply(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return product(val);
+        return Metrics.begin(Metrics.Operation.MULTIPLY, this, val).end(product(val));
+    }
+
+    public BigNumber divide(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return quotient(val);
+        return Metrics.begin(Metrics.Operation.DIVIDE, this, val).end(quotient(val));
+    }
+
+    // the quotient is truncated towards zero and the remainder takes the sign of this number
+    public BigNumber[] divideAndRemainder(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return quotientAndRemainder(val);
+        Metrics.Probe probe = Metrics.begin(Metrics.Operation.DIVIDE, this, val);
+        BigNumber[] qr = quotientAndRemainder(val);
+        return probe.end(qr, qr[0]);
+    }
+
+    public BigNumber remainder(BigNumber val) {
+        if (!Metrics.ENABLED)
+            return rest(val);
+        return Metrics.begin(Metrics.Operation.DIVIDE, this, val).end(rest(val));
+    }
+
+    // the *Exact calls keep two inline operands inline until the result overflows
+    private BigNumber sum(BigNumber val) {
+        if (mag == null && val.mag == null) {
+            try {
+                return fromLong(Math.addExact(small, val.small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+
+        int[] a = magnitude();
+        int[] b = val.magnitude();
+        if(this.sign == val.sign){
+            return of(Limbs.add(a, b), this.sign);
+        }
+
+
+        // different signs
+        int cmp = Limbs.compare(a, b);
+        if (cmp == 0)
+            return ZERO;
+
+        if (cmp > 0)
+            return of(Limbs.subtract(a, b), this.sign);
+        else
+            return of(Limbs.subtract(b, a), val.sign);
+
+    }
+
+    private BigNumber difference(BigNumber val) {
+        if (mag == null && val.mag == null) {
+            try {
+                return fromLong(Math.subtractExact(small, val.small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+        return this.sum(val.negate());
+    }
+
+    private BigNumber product(BigNumber val) {
+        if (mag == null && val.mag == null) {
+            try {
+                return fromLong(Math.multiplyExact(small, val.small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+
+        if (this.signum() == 0 || val.signum() == 0)
+            return ZERO;
+
+        if (this.compareTo(ONE) == 0)
+            return val;
+        if (val.compareTo(ONE) == 0)
+            return this;
+
+        if (this.compareTo(NEGATIVE_ONE) == 0)
+            return val.negate();
+        if (val.compareTo(NEGATIVE_ONE) == 0)
+            return this.negate();
+
+        boolean resultSign = (sign == val.sign)? BigNumber.POSITIVE : BigNumber.NEGATIVE;
+        return of(Multiplication.multiply(magnitude(), val.magnitude()), resultSign);
+
+    }
+
+    // cheaper than multiply(this), see Multiplication.square
+    public BigNumber square() {
+        if (!Metrics.ENABLED)
+            return squared();
+        return Metrics.begin(Metrics.Operation.MULTIPLY, this, this).end(squared());
+    }
+
+    private BigNumber squared() {
+        if (mag == null) {
+            try {
+                return fromLong(Math.multiplyExact(small, small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+        return of(Multiplication.square(magnitude()), BigNumber.POSITIVE);
+    }
+
+    // Left-to-right binary exponentiation. Trailing zero digits are taken off
+    // first and put back as a single decimal shift of the result, which only
+    // moves limbs; factors of two stay in, a power of two is no shift in base 10^9.
+    public BigNumber pow(int exponent) {
+        if (exponent < 0)
+            throw new ArithmeticException("Negative exponent");
+        if (exponent == 0)
+            return ONE;
+        if (signum() == 0 || exponent == 1)
+            return this;
+
+        boolean negative = sign == BigNumber.NEGATIVE && (exponent & 1) != 0;
+        int[] m = magnitude();
+        int zeros = Limbs.trailingZeroDigits(m);
+        long shift = (long) zeros * exponent;
+        if ((Limbs.digitCount(m) - zeros) * (long) exponent + shift > Integer.MAX_VALUE)
+            throw new ArithmeticException("BigNumber would overflow supported range");
+
+        BigNumber base = of(zeros == 0 ? m : Limbs.shiftRightDecimal(m, zeros), BigNumber.POSITIVE);
+        BigNumber result = base;
+        if (!base.equals(ONE)) {
+            for (int bit = 30 - Integer.numberOfLeadingZeros(exponent); bit >= 0; bit--) {
+                result = result.square();
+                if ((exponent >>> bit & 1) != 0)
+                    result = result.multiply(base);
+            }
+        }
+
+        if (shift != 0)
+            result = of(Limbs.shiftLeftDecimal(result.magnitude(), (int) shift), BigNumber.POSITIVE);
+        return negative ? result.negate() : result;
+    }
+
+    // same result as multiply, with the sub-products of large operands spread over a fork/join pool
+    public BigNumber parallelMultiply(BigNumber val) {
+        ForkJoinPool pool = ParallelMultiplication.defaultPool();
+        return parallelMultiply(val, pool, pool.getParallelism());
+    }
+
+    public BigNumber parallelMultiply(BigNumber val, ForkJoinPool pool, int maxParallelism) {
+        if (val == null || pool == null)
+            throw new NullPointerException();
+        if (maxParallelism < 1)
+            throw new IllegalArgumentException("maxParallelism must be positive");
+
+        if (this.signum() == 0 || val.signum() == 0)
+            return ZERO;
+
+        boolean resultSign = (sign == val.sign)? BigNumber.POSITIVE : BigNumber.NEGATIVE;
+        return of(ParallelMultiplication.multiply(magnitude(), val.magnitude(), pool, maxParallelism), resultSign);
+    }
+
+    private BigNumber quotient(BigNumber val) {
+        if (divisibleInline(val))
+            return fromLong(small / val.small);
+        return quotientAndRemainder(val)[0];
+    }
+
+    private BigNumber[] quotientAndRemainder(BigNumber val) {
+
+        // validation
+        if(val.signum() == 0){
+            throw new ArithmeticException("Division by zero");
+        }
+        if(this.signum() == 0)
+            return new BigNumber[] {ZERO, ZERO};
+        if (divisibleInline(val))
+            return new BigNumber[] {fromLong(small / val.small), fromLong(small % val.small)};
+
+        int[][] qr = Division.divideAndRemainder(magnitude(), val.magnitude());
+        boolean quotientSign = (this.sign == val.sign) ? BigNumber.POSITIVE : BigNumber.NEGATIVE;
+        return new BigNumber[] {of(qr[0], quotientSign), of(qr[1], this.sign)};
+    }
+
+    private BigNumber rest(BigNumber val) {
+        if (divisibleInline(val))
+            return fromLong(small % val.small);
+        return quotientAndRemainder(val)[1];
+    }
+
+    // long division has the same truncation, and only Long.MIN_VALUE / -1 overflows
+    private boolean divisibleInline(BigNumber val) {
+        return mag == null && val.mag == null && val.small != 0
+                && !(small == Long.MIN_VALUE && val.small == -1);
+    }
+
+    // precomputes a reciprocal of d for many divisions by it, see Divisor
+    public static Divisor divisor(BigNumber d) {
+        return new Divisor(d);
+    }
+
+    // unlike remainder, the result is never negative
+    public BigNumber mod(BigNumber m) {
+        if (m.signum() <= 0)
+            throw new ArithmeticException("Modulus not positive");
+
+        BigNumber r = remainder(m);
+        return r.sign == BigNumber.POSITIVE ? r : r.add(m);
+    }
+
+    //// modular arithmetic (see ModularContext, which can be reused for a fixed modulus)
+    public BigNumber modPow(BigNumber exponent, BigNumber m) {
+        return new ModularContext(m).pow(this, exponent);
+    }
+
+    public BigNumber modMultiply(BigNumber val, BigNumber m) {
+        return new ModularContext(m).multiply(this, val);
+    }
+
+    public BigNumber modInverse(BigNumber m) {
+        return Gcd.modInverse(mod(m), m);
+    }
+
+    //// gcd & primes
+    // never negative; gcd(0, 0) is 0
+    public BigNumber gcd(BigNumber val) {
+        // Long.MIN_VALUE has no positive inline counterpart
+        if (mag == null && val.mag == null && small != Long.MIN_VALUE && val.small != Long.MIN_VALUE)
+            return fromLong(Gcd.gcd(Math.abs(small), Math.abs(val.small)));
+        return of(Gcd.gcd(magnitude(), val.magnitude()), POSITIVE);
+    }
+
+    // Baillie-PSW, see Primes; the sign is ignored
+    public boolean isProbablePrime() {
+        return Primes.isProbablePrime(this);
+    }
+
+    // the smallest probable prime greater than this number
+    public BigNumber nextProbablePrime() {
+        return Primes.nextProbablePrime(this);
+    }
+
+    //// fused multiply-add (see DotProduct)
+    // this * b + c without an intermediate product
+    public BigNumber multiplyAdd(BigNumber b, BigNumber c) {
+        if (mag == null && b.mag == null && c.mag == null) {
+            try {
+                return fromLong(Math.addExact(Math.multiplyExact(small, b.small), c.small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+        return DotProduct.multiplyAdd(this, b, c, false);
+    }
+
+    // this * b - c without an intermediate product
+    public BigNumber multiplySubtract(BigNumber b, BigNumber c) {
+        if (mag == null && b.mag == null && c.mag == null) {
+            try {
+                return fromLong(Math.subtractExact(Math.multiplyExact(small, b.small), c.small));
+            } catch (ArithmeticException overflow) {
+                // continue with limbs
+            }
+        }
+        return DotProduct.multiplyAdd(this, b, c, true);
+    }
+
+    // a[0] * b[0] + a[1] * b[1] + ..., with a single carry pass over all the products
+    public static BigNumber dotProduct(BigNumber[] a, BigNumber[] b) {
+        return DotProduct.dot(a, b, null, false);
+    }
+
+    //// roots & reciprocal (see Roots and Divisor.reciprocal)
+    // floor(sqrt(this))
+    public BigNumber sqrt() {
+        if (signum() < 0)
+            throw new ArithmeticException("Square root of negative BigNumber");
+        return Roots.root(this, 2);
+    }
+
+    // {s, this - s^2} with s = sqrt()
+    public BigNumber[] sqrtAndRemainder() {
+        BigNumber s = sqrt();
+        return new BigNumber[] {s, subtract(s.square())};
+    }
+
+    // the n-th root truncated towards zero; negative numbers only have roots of odd degree
+    public BigNumber nthRoot(int n) {
+        if (n <= 0)
+            throw new ArithmeticException("Non-positive root degree");
+        if (signum() < 0 && (n & 1) == 0)
+            throw new ArithmeticException("Even root of negative BigNumber");
+        if (n == 1)
+            return this;
+        BigNumber root = Roots.root(abs(), n);
+        return signum() < 0 ? root.negate() : root;
+    }
+
+    // 10^digits / this, truncated towards zero like divide
+    public BigNumber reciprocal(int digits) {
+        if (signum() == 0)
+            throw new ArithmeticException("Division by zero");
+        if (digits < 0)
+            throw new ArithmeticException("Negative precision");
+        return of(Divisor.reciprocal(magnitude(), digits), sign);
+    }
+
+    //// abs, negate & BigNumber comparison methods
+    // both share the magnitude of this number, so they cost O(1)
+    public BigNumber abs(){
+        return this.sign == BigNumber.POSITIVE ? this : negate();
+    }
+
+    public BigNumber negate(){
+        if (mag != null)
+            return of(this.mag, !this.sign);
+        // -Long.MIN_VALUE is the one inline value whose negation needs limbs
+        if (small == Long.MIN_VALUE)
+            return new BigNumber(Limbs.fromLong(small), BigNumber.POSITIVE);
+        return fromLong(-small);
+    }
+
+    public int signum(){
+        if (mag == null)
+            return Long.signum(small);
+        return sign == BigNumber.POSITIVE ? 1 : -1;
+    }
+
+    // decimal digits of the absolute value, 1 for zero
+    public int digitCount(){
+        return Limbs.digitCount(magnitude());
+    }
+
+    //// batch operations
+    // balanced product tree, subtrees are evaluated in parallel; the empty product is ONE
+    public static BigNumber product(Collection<BigNumber> values) {
+        return ProductTree.product(toArray(values));
+    }
+
+    public static BigNumber sum(Collection<BigNumber> values) {
+        return ProductTree.sum(toArray(values));
+    }
+
+    // prime swing factorial
+    public static BigNumber factorial(int n) {
+        return Factorials.factorial(n);
+    }
+
+    // n choose k, ZERO for k outside [0, n]
+    public static BigNumber binomial(int n, int k) {
+        return Factorials.binomial(n, k);
+    }
+
+    private static BigNumber[] toArray(Collection<BigNumber> values) {
+        BigNumber[] array = values.toArray(new BigNumber[0]);
+        for (BigNumber val : array) {
+            if (val == null)
+                throw new NullPointerException();
+        }
+        return array;
+    }
+
+    //// access for the other classes of the package
+    // mag must be normalized (see Limbs) and is never modified afterwards
+    static BigNumber fromMagnitude(int[] mag, boolean negative){
+        return of(mag, !negative);
+    }
+
+    // a new array for inline values
+    int[] magnitude(){
+        return mag != null ? mag : Limbs.fromLong(small);
+    }
+
+    boolean isInline(){
+        return mag == null;
+    }
+
+    int limbCount(){
+        if (mag != null)
+            return mag.length;
+        long abs = Math.abs(small);
+        // Long.MIN_VALUE stays negative, and needs three limbs
+        if (abs < 0 || abs >= (long) Limbs.BASE * Limbs.BASE)
+            return 3;
+        return abs >= Limbs.BASE ? 2 : abs != 0 ? 1 : 0;
+    }
+
+    LimbView view(){
+        return LimbView.of(magnitude());
+    }
+
+    public boolean isGreaterThan(BigNumber val){
+        return (this.compareTo(val) > 0);
+    }
+
+    @Override
+    public int compareTo(BigNumber val) {
+        if (val == null)
+            throw new NullPointerException();
+
+        if (mag == null && val.mag == null)
+            return Long.compare(small, val.small);
+        if (sign == val.sign) {
+            if (sign == POSITIVE)
+                return this.compareDigits(val);
+            else
+                return val.compareDigits(this);
+        }
+
+        return sign == POSITIVE ? 1 : -1;
+    }
+
+    private int compareDigits(BigNumber val) {
+        // an inline value is always the smaller magnitude
+        if (mag == null || val.mag == null)
+            return mag == null ? -1 : 1;
+        return Limbs.compare(mag, val.mag);
+    }
+
+    @Override
+    public String toString() {
+        String s = number;
+        if (s == null)
+            number = s = mag == null ? Long.toString(small) : Limbs.toDecimalString(mag, sign == BigNumber.NEGATIVE);
+        return s;
+    }
+
+    //// decimal output in chunks, the same text as toString without building it (see DecimalWriter)
+    public void writeTo(Appendable out) throws IOException {
+        if (out == null)
+            throw new NullPointerException();
+        if (mag == null || number != null)
+            out.append(toString());
+        else
+            DecimalWriter.write(mag, sign == BigNumber.NEGATIVE, out);
+    }
+
+    // ASCII digits
+    public void writeTo(WritableByteChannel out) throws IOException {
+        if (out == null)
+            throw new NullPointerException();
+        if (mag == null || number != null) {
+            DecimalWriter writer = new DecimalWriter(out);
+            writer.text(toString());
+            writer.finish();
+        } else {
+            DecimalWriter.write(mag, sign == BigNumber.NEGATIVE, out);
+        }
+    }
+
+    //// binary form (see BigNumberCodec)
+    public void writeTo(ByteBuffer out) {
+        BigNumberCodec.write(this, out);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        BigNumberCodec.write(this, out);
+    }
+
+    public static BigNumber readFrom(ByteBuffer in) {
+        return BigNumberCodec.read(in);
+    }
+
+    public static BigNumber readFrom(DataInput in) throws IOException {
+        return BigNumberCodec.read(in);
+    }
+
+    //// java.math.BigInteger & two's complement bytes (see RadixConversion)
+    public BigInteger toBigInteger() {
+        if (mag == null)
+            return BigInteger.valueOf(small);
+        return RadixConversion.toBigInteger(mag, sign == BigNumber.NEGATIVE);
+    }
+
+    public static BigNumber fromBigInteger(BigInteger val) {
+        if (val.bitLength() < 64)
+            return fromLong(val.longValue());
+        return RadixConversion.fromTwosComplement(val.toByteArray());
+    }
+
+    // big-endian two's complement in the fewest bytes, like BigInteger.toByteArray
+    public byte[] toByteArray() {
+        return toBigInteger().toByteArray();
+    }
+
+    public static BigNumber fromTwosComplement(byte[] bytes) {
+        return RadixConversion.fromTwosComplement(bytes);
+    }
+
+    // serialization goes through SerializedBigNumber
+    private Object writeReplace() {
+        return new SerializedBigNumber(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("BigNumber is deserialized through SerializedBigNumber");
+    }
+
+    //// equals & hashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BigNumber bigNumber = (BigNumber) o;
+        return sign == bigNumber.sign && small == bigNumber.small &&
+                Arrays.equals(mag, bigNumber.mag);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && mag == null) {
+            hash = h = (int) (small ^ (small >>> 32));
+        } else if (h == 0) {
+            h = Limbs.hashCode(mag);
+            hash = h = sign ? h : -h;
+        }
+        return h;
+    }
+}
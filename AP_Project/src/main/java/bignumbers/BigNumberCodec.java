@@ -0,0 +1,236 @@
+package bignumbers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Compact binary form of BigNumber.
+// A number is an unsigned LEB128 varint holding limbCount << 1 | negative,
+// followed by the base 10^9 limbs, least significant first, as big-endian
+// 4 byte ints; zero is the single byte 0. An array is a varint element count
+// followed by its elements. Malformed input is rejected with a
+// NumberFormatException, like a malformed decimal string; so is a byte array
+// that ends early, while a buffer or stream that ends early throws
+// BufferUnderflowException or EOFException, as there may be more to come.
+public final class BigNumberCodec {
+
+    // limbs are read in pieces of this size, so a corrupt length cannot force a huge allocation
+    private static final int READ_CHUNK = 1 << 16;
+
+    private BigNumberCodec() {
+    }
+
+    public static int encodedSize(BigNumber val) {
+        int limbs = val.magnitude().length;
+        return varintSize(header(val)) + 4 * limbs;
+    }
+
+    //// ByteBuffer
+    // both directions use big-endian ints whatever the order of the buffer
+    public static void write(BigNumber val, ByteBuffer out) {
+        int[] mag = val.magnitude();
+        writeVarint(out, header(val));
+        ByteOrder order = out.order();
+        out.order(ByteOrder.BIG_ENDIAN);
+        try {
+            out.asIntBuffer().put(mag);
+            out.position(out.position() + 4 * mag.length);
+        } finally {
+            out.order(order);
+        }
+    }
+
+    public static BigNumber read(ByteBuffer in) {
+        long header = readVarint(in);
+        int count = limbCount(header);
+        if (in.remaining() < 4L * count)
+            throw new BufferUnderflowException();
+
+        int[] mag = new int[count];
+        ByteOrder order = in.order();
+        in.order(ByteOrder.BIG_ENDIAN);
+        try {
+            in.asIntBuffer().get(mag);
+            in.position(in.position() + 4 * count);
+        } finally {
+            in.order(order);
+        }
+        return toBigNumber(mag, header);
+    }
+
+    public static void writeAll(BigNumber[] values, ByteBuffer out) {
+        writeVarint(out, values.length);
+        for (BigNumber val : values)
+            write(val, out);
+    }
+
+    public static BigNumber[] readAll(ByteBuffer in) {
+        int length = arrayLength(readVarint(in));
+        // every element takes at least a byte
+        if (length > in.remaining())
+            throw new BufferUnderflowException();
+        BigNumber[] values = new BigNumber[length];
+        for (int i = 0; i < values.length; i++)
+            values[i] = read(in);
+        return values;
+    }
+
+    //// byte arrays
+    public static byte[] encode(BigNumber val) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(val));
+        write(val, out);
+        return out.array();
+    }
+
+    public static BigNumber decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        BigNumber val;
+        try {
+            val = read(in);
+        } catch (BufferUnderflowException e) {
+            throw malformed();
+        }
+        if (in.hasRemaining())
+            throw malformed();
+        return val;
+    }
+
+    // one exactly sized buffer for the whole array
+    public static byte[] encodeAll(BigNumber[] values) {
+        long size = varintSize(values.length);
+        for (BigNumber val : values)
+            size += encodedSize(val);
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Encoding exceeds 2 GB");
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        writeAll(values, out);
+        return out.array();
+    }
+
+    public static BigNumber[] decodeAll(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        BigNumber[] values;
+        try {
+            values = readAll(in);
+        } catch (BufferUnderflowException e) {
+            throw malformed();
+        }
+        if (in.hasRemaining())
+            throw malformed();
+        return values;
+    }
+
+    //// DataOutput & DataInput
+    public static void write(BigNumber val, DataOutput out) throws IOException {
+        out.write(encode(val));
+    }
+
+    public static BigNumber read(DataInput in) throws IOException {
+        long header = readVarint(in);
+        int count = limbCount(header);
+
+        int[] mag = new int[Math.min(count, READ_CHUNK)];
+        byte[] chunk = new byte[4 * mag.length];
+        for (int read = 0; read < count; ) {
+            int n = Math.min(count - read, READ_CHUNK);
+            in.readFully(chunk, 0, 4 * n);
+            if (mag.length < read + n)
+                mag = Arrays.copyOf(mag, Math.min(count, 2 * mag.length));
+            ByteBuffer.wrap(chunk, 0, 4 * n).asIntBuffer().get(mag, read, n);
+            read += n;
+        }
+        return toBigNumber(mag, header);
+    }
+
+    public static void writeAll(BigNumber[] values, DataOutput out) throws IOException {
+        out.write(encodeAll(values));
+    }
+
+    public static BigNumber[] readAll(DataInput in) throws IOException {
+        int length = arrayLength(readVarint(in));
+        BigNumber[] values = new BigNumber[Math.min(length, READ_CHUNK)];
+        for (int i = 0; i < length; i++) {
+            if (i == values.length)
+                values = Arrays.copyOf(values, Math.min(length, 2 * values.length));
+            values[i] = read(in);
+        }
+        return values;
+    }
+
+    //// header & validation
+    private static long header(BigNumber val) {
+        return (long) val.magnitude().length << 1 | (val.signum() < 0 ? 1 : 0);
+    }
+
+    private static int limbCount(long header) {
+        long count = header >>> 1;
+        if (count > Integer.MAX_VALUE / 4 || (count == 0 && header != 0))
+            throw malformed();
+        return (int) count;
+    }
+
+    private static int arrayLength(long length) {
+        if (length > Integer.MAX_VALUE)
+            throw malformed();
+        return (int) length;
+    }
+
+    private static BigNumber toBigNumber(int[] mag, long header) {
+        if (mag.length == 0)
+            return BigNumber.ZERO;
+        for (int limb : mag) {
+            if (limb < 0 || limb >= Limbs.BASE)
+                throw malformed();
+        }
+        if (mag[mag.length - 1] == 0)
+            throw malformed();
+        return BigNumber.fromMagnitude(mag, (header & 1) != 0);
+    }
+
+    private static NumberFormatException malformed() {
+        return new NumberFormatException("Malformed BigNumber encoding");
+    }
+
+    //// unsigned LEB128
+    private static int varintSize(long v) {
+        int size = 1;
+        while ((v >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+    private static void writeVarint(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return v;
+        }
+        throw malformed();
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return v;
+        }
+        throw malformed();
+    }
+}
@@ -0,0 +1,389 @@
+package bignumbers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Decimal text to BigNumber in a single pass, without regular expressions.
+// The accepted syntax is the one of fromString: optional surrounding
+// whitespace, an optional sign and at least one digit. A limb holds exactly
+// nine decimal digits, so every input converts in linear time; there is no
+// radix change that would need a divide-and-conquer conversion.
+final class DecimalParser {
+
+    private static final int CHUNK = 8192;
+
+    // files are mapped window by window, so inputs past 2 GB work too
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private DecimalParser() {
+    }
+
+    //// in-memory input
+    static BigNumber parse(CharSequence s, int start, int end) {
+        if (start < 0 || end > s.length() || start > end)
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + s.length());
+
+        while (start < end && s.charAt(start) <= ' ')
+            start++;
+        while (end > start && s.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            throw new NumberFormatException("Zero length BigNumber");
+
+        boolean negative = false;
+        char first = s.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+            if (start == end)
+                throw new NumberFormatException("Zero length BigNumber");
+        }
+
+        int digitsStart = start;
+        while (start < end && s.charAt(start) == '0')
+            start++;
+
+        // nine digits per limb, filled from the least significant end
+        int[] mag = new int[(end - start + Limbs.DIGITS - 1) / Limbs.DIGITS];
+        int to = end;
+        for (int i = 0; i < mag.length; i++) {
+            int from = Math.max(to - Limbs.DIGITS, start);
+            int limb = 0;
+            for (int j = from; j < to; j++) {
+                int d = s.charAt(j) - '0';
+                if (d < 0 || d > 9)
+                    throw invalid(s, digitsStart, end, firstInvalid(s, digitsStart, end));
+                limb = limb * 10 + d;
+            }
+            mag[i] = limb;
+            to = from;
+        }
+
+        if (mag.length == 0)
+            return BigNumber.ZERO;
+        return BigNumber.fromMagnitude(mag, negative);
+    }
+
+    private static int firstInvalid(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return i;
+        }
+        return to;
+    }
+
+    // same message for every source: up to four characters on either side of the bad one
+    private static NumberFormatException invalid(CharSequence s, int from, int to, int index) {
+        CharSequence context = s.subSequence(Math.max(index - 4, from), Math.min(index + 4, to));
+        return new NumberFormatException("For input string: \"" + context + "\"");
+    }
+
+    //// streaming input
+    static BigNumber parse(Reader reader) throws IOException {
+        Accumulator acc = new Accumulator();
+        char[] buf = new char[CHUNK];
+        int n;
+        while ((n = reader.read(buf, 0, CHUNK)) != -1)
+            acc.accept(buf, n);
+        return acc.finish();
+    }
+
+    static BigNumber parse(Path path) throws IOException {
+        Accumulator acc = new Accumulator();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            read(channel, acc);
+        }
+        return acc.finish();
+    }
+
+    private static void read(FileChannel channel, Syntax sink) throws IOException {
+        byte[] bytes = new byte[CHUNK];
+        char[] chars = new char[CHUNK];
+        long size = channel.size();
+        for (long position = 0; position < size; position += MAP_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, Math.min(MAP_WINDOW, size - position));
+            while (window.hasRemaining()) {
+                int n = Math.min(CHUNK, window.remaining());
+                window.get(bytes, 0, n);
+                // digits, signs and whitespace are all ASCII
+                for (int i = 0; i < n; i++)
+                    chars[i] = (char) (bytes[i] & 0xFF);
+                sink.accept(chars, n);
+            }
+        }
+    }
+
+    //// off-heap target
+    // Two passes over the mapped file: the first checks the syntax and counts the
+    // significant digits, so that the second knows where every limb goes and can
+    // fill an off-heap store from the top without holding the number on the heap.
+    static OffHeapNumber parseOffHeap(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Counter counter = new Counter();
+            read(channel, counter);
+            counter.finish();
+
+            long limbs = (counter.digits + Limbs.DIGITS - 1) / Limbs.DIGITS;
+            LimbStore store = LimbStore.allocate(limbs);
+            try {
+                Filler filler = new Filler(store, counter.digits);
+                read(channel, filler);
+                filler.finish();
+            } catch (IOException | RuntimeException e) {
+                store.close();
+                throw e;
+            }
+            return new OffHeapNumber(store, counter.negative);
+        }
+    }
+
+    // The syntax of fromString, checked chunk by chunk; the significant digits
+    // (those after the leading zeros) go to digit(), most significant first.
+    // Whitespace after the sign or the digits is only an error if something
+    // other than whitespace follows it, so it is held as a pending run until
+    // then. An error message needs the context that parse(CharSequence) shows
+    // around the first invalid character: the four digits before it are taken
+    // from the chunk, or from the end of the previous one, and after an error
+    // the next three characters are collected, even across chunks, before it
+    // is thrown.
+    private abstract static class Syntax {
+        private static final int LEADING = 0;
+        private static final int SIGN = 1;
+        private static final int DIGITS = 2;
+        // whitespace after the sign or the digits
+        private static final int RUN = 3;
+        private static final int FAILED = 4;
+
+        private int state = LEADING;
+        boolean negative;
+        // false while only leading zeros have been seen
+        boolean significant;
+
+        // digits so far, leading zeros included
+        private long digitCount;
+        // the last four characters of the previous chunks
+        private final StringBuilder tail = new StringBuilder(8);
+        // the digits before the pending run and its first characters
+        private String runBefore;
+        private final StringBuilder run = new StringBuilder(4);
+        private int runLength;
+        // while FAILED: the context before the first invalid character, and up
+        // to four characters from it on
+        private String before;
+        private StringBuilder after;
+        private int lastNonBlank;
+        // something other than whitespace came after the four characters
+        private boolean followed;
+
+        final void accept(char[] buf, int n) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                int d = c - '0';
+                if (d >= 0 && d <= 9 && state <= DIGITS) {
+                    state = DIGITS;
+                    digitCount++;
+                    if (significant || d != 0) {
+                        significant = true;
+                        digit(d);
+                    }
+                } else if (state == FAILED) {
+                    context(c);
+                } else if (c <= ' ') {
+                    if (state != LEADING) {
+                        if (state != RUN) {
+                            runBefore = digitsBefore(buf, i);
+                            state = RUN;
+                            run.setLength(0);
+                            runLength = 0;
+                        }
+                        if (runLength++ < 4)
+                            run.append(c);
+                    }
+                } else if ((c == '-' || c == '+') && state == LEADING) {
+                    negative = c == '-';
+                    state = SIGN;
+                } else if (state == RUN) {
+                    // the run was the first invalid character
+                    fail(runBefore, run);
+                    context(c);
+                } else {
+                    fail(digitsBefore(buf, i), "");
+                    context(c);
+                }
+            }
+            tail.append(buf, Math.max(0, n - 4), Math.min(n, 4));
+            tail.delete(0, Math.max(0, tail.length() - 4));
+        }
+
+        // the last (up to) four digits before buf[i]; the digits run without a
+        // break up to there, so they are the characters right before it
+        private String digitsBefore(char[] buf, int i) {
+            int k = (int) Math.min(4, digitCount);
+            if (k <= i)
+                return new String(buf, i - k, k);
+            return tail.substring(tail.length() - (k - i)) + new String(buf, 0, i);
+        }
+
+        private void fail(String digits, CharSequence start) {
+            before = digits;
+            after = new StringBuilder(4).append(start);
+            lastNonBlank = -1;
+            state = FAILED;
+        }
+
+        // one more character after the first invalid one; thrown once the
+        // context is complete and does not end in whitespace that may trail the input
+        private void context(char c) {
+            if (after.length() < 4) {
+                after.append(c);
+                if (c > ' ')
+                    lastNonBlank = after.length() - 1;
+            } else if (c > ' ') {
+                followed = true;
+            }
+            if (after.length() == 4 && (lastNonBlank == 3 || followed))
+                throw invalid();
+        }
+
+        private NumberFormatException invalid() {
+            int length = followed ? after.length() : lastNonBlank + 1;
+            return new NumberFormatException("For input string: \"" + before + after.substring(0, length) + "\"");
+        }
+
+        abstract void digit(int d);
+
+        final void checkComplete() {
+            if (state == FAILED)
+                throw invalid();
+            if (state == LEADING || state == SIGN || (state == RUN && digitCount == 0))
+                throw new NumberFormatException("Zero length BigNumber");
+        }
+    }
+
+    private static final class Counter extends Syntax {
+        long digits;
+
+        @Override
+        void digit(int d) {
+            digits++;
+        }
+
+        void finish() {
+            checkComplete();
+        }
+    }
+
+    // Puts the limbs from the top down: the top limb takes what is left over
+    // from full groups of nine, every other limb exactly nine digits. Finished
+    // limbs are collected in a heap chunk and written to the store in bulk.
+    private static final class Filler extends Syntax {
+        private final LimbStore store;
+        private final int[] chunk = new int[CHUNK];
+        private int count;
+        // index of the limb being filled
+        private long index;
+        private int limb;
+        private int missing;
+
+        Filler(LimbStore store, long digits) {
+            this.store = store;
+            index = store.length() - 1;
+            missing = (int) (digits - Limbs.DIGITS * index);
+        }
+
+        @Override
+        void digit(int d) {
+            if (index < 0)
+                throw changed();
+            limb = limb * 10 + d;
+            if (--missing == 0) {
+                chunk[count++] = limb;
+                index--;
+                limb = 0;
+                missing = Limbs.DIGITS;
+                if (count == chunk.length)
+                    flush();
+            }
+        }
+
+        // the chunk holds the limbs index + count down to index + 1
+        private void flush() {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int t = chunk[i];
+                chunk[i] = chunk[j];
+                chunk[j] = t;
+            }
+            store.write(index + 1, chunk, count);
+            count = 0;
+        }
+
+        void finish() {
+            checkComplete();
+            if (index != -1)
+                throw changed();
+            flush();
+        }
+
+        private static IllegalStateException changed() {
+            return new IllegalStateException("File changed while it was read");
+        }
+    }
+
+    // Collects the digits chunk by chunk in nine-digit groups, most significant
+    // group first, since the total length is not known in advance. finish()
+    // reverses the groups into limb order and shifts in the last, partial group.
+    private static final class Accumulator extends Syntax {
+        private int[] groups = new int[16];
+        private int count;
+        private int group;
+        private int groupDigits;
+
+        @Override
+        void digit(int d) {
+            group = group * 10 + d;
+            if (++groupDigits == Limbs.DIGITS) {
+                if (count == groups.length)
+                    groups = Arrays.copyOf(groups, 2 * count);
+                groups[count++] = group;
+                group = 0;
+                groupDigits = 0;
+            }
+        }
+
+        BigNumber finish() {
+            checkComplete();
+            if (!significant)
+                return BigNumber.ZERO;
+
+            int[] mag = groups.length > count ? groups : Arrays.copyOf(groups, count + 1);
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int t = mag[i];
+                mag[i] = mag[j];
+                mag[j] = t;
+            }
+
+            // the groups were left aligned: value = groups * 10^groupDigits + group
+            int length = count;
+            if (groupDigits > 0) {
+                long m = Limbs.pow10(groupDigits);
+                long carry = group;
+                for (int i = 0; i < count; i++) {
+                    long t = mag[i] * m + carry;
+                    carry = t / Limbs.BASE;
+                    mag[i] = (int) (t - carry * Limbs.BASE);
+                }
+                mag[length++] = (int) carry;
+                while (mag[length - 1] == 0)
+                    length--;
+            }
+            return BigNumber.fromMagnitude(Arrays.copyOf(mag, length), negative);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package bignumbers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Streams the decimal form of a number without building it as a String.
+// Limbs already are groups of nine decimal digits, so the text is produced
+// limb by limb from the top into a buffer of CHUNK_LIMBS limbs, which is
+// handed to the target whenever it is full; the memory needed is that buffer,
+// whatever the length of the number. Writers and StringBuilders take the
+// buffer as it is, other Appendables through a CharBuffer view of it, and
+// channels get the same digits as ASCII bytes. The limbs can arrive in
+// pieces, most significant piece first (see OffHeapNumber).
+final class DecimalWriter {
+
+    private static final int CHUNK_LIMBS = 1024;
+    // sign and one chunk of limbs
+    private static final int BUFFER_SIZE = 1 + CHUNK_LIMBS * Limbs.DIGITS;
+
+    private final Appendable appendable;
+    private final WritableByteChannel channel;
+    private final ByteBuffer bytes;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int len;
+    // false until the top limb, which goes without leading zeros, has been written
+    private boolean started;
+
+    DecimalWriter(Appendable out) {
+        appendable = out;
+        channel = null;
+        bytes = null;
+    }
+
+    DecimalWriter(WritableByteChannel out) {
+        appendable = null;
+        channel = out;
+        bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    static void write(int[] mag, boolean negative, Appendable out) throws IOException {
+        new DecimalWriter(out).write(mag, negative);
+    }
+
+    static void write(int[] mag, boolean negative, WritableByteChannel out) throws IOException {
+        new DecimalWriter(out).write(mag, negative);
+    }
+
+    private void write(int[] mag, boolean negative) throws IOException {
+        if (negative)
+            minus();
+        limbs(mag, 0, mag.length);
+        finish();
+    }
+
+    //// pieces
+    void minus() {
+        buf[len++] = '-';
+    }
+
+    // limbs[from, to), the most significant one at to - 1
+    void limbs(int[] limbs, int from, int to) throws IOException {
+        for (int i = to - 1; i >= from; i--) {
+            if (len + Limbs.DIGITS > buf.length)
+                flush();
+            len = putLimb(limbs[i], !started, buf, len);
+            started = true;
+        }
+    }
+
+    // text that already exists, e.g. a cached toString
+    void text(String s) throws IOException {
+        for (int from = 0; from < s.length(); ) {
+            if (len == buf.length)
+                flush();
+            int to = Math.min(from + buf.length - len, s.length());
+            s.getChars(from, to, buf, len);
+            len += to - from;
+            from = to;
+        }
+    }
+
+    void finish() throws IOException {
+        flush();
+    }
+
+    //// digits
+    // the top limb goes without its leading zeros, all others with all nine digits
+    private static int putLimb(int limb, boolean top, char[] buf, int pos) {
+        int digits = top ? Limbs.digitCount(limb) : Limbs.DIGITS;
+        for (int p = pos + digits - 1; p >= pos; p--) {
+            buf[p] = (char) ('0' + limb % 10);
+            limb /= 10;
+        }
+        return pos + digits;
+    }
+
+    //// targets
+    private void flush() throws IOException {
+        if (channel != null) {
+            bytes.clear();
+            for (int i = 0; i < len; i++)
+                bytes.put((byte) buf[i]);
+            bytes.flip();
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        } else if (appendable instanceof Writer) {
+            ((Writer) appendable).write(buf, 0, len);
+        } else if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(buf, 0, len);
+        } else {
+            appendable.append(CharBuffer.wrap(buf, 0, len));
+        }
+        len = 0;
+    }
+}
@@ -0,0 +1,265 @@
+package bignumbers;
+
+import java.util.Arrays;
+
+// Division engine working directly on limb arrays.
+// Single limb divisors take a plain short division, medium sizes Knuth's
+// Algorithm D, and divisors of BURNIKEL_ZIEGLER_THRESHOLD limbs or more the
+// recursive Burnikel-Ziegler division (as long as the quotient is at least
+// BURNIKEL_ZIEGLER_OFFSET limbs long), which hands its multiplications to
+// Multiplication. Both limits can be overridden with the system properties
+// bignumbers.divide.burnikelZieglerThreshold and bignumbers.divide.burnikelZieglerOffset.
+final class Division {
+
+    static final int BURNIKEL_ZIEGLER_THRESHOLD =
+            Integer.getInteger("bignumbers.divide.burnikelZieglerThreshold", 160);
+    static final int BURNIKEL_ZIEGLER_OFFSET =
+            Integer.getInteger("bignumbers.divide.burnikelZieglerOffset", 80);
+
+    private static final int[] ONE = {1};
+
+    private Division() {
+    }
+
+    // returns {quotient, remainder}; b must not be zero
+    static int[][] divideAndRemainder(int[] a, int[] b) {
+        if (!Metrics.ENABLED)
+            return dispatch(a, b);
+        try {
+            return dispatch(a, b);
+        } finally {
+            Metrics.exitDivision();
+        }
+    }
+
+    private static int[][] dispatch(int[] a, int[] b) {
+        int cmp = Limbs.compare(a, b);
+        if (cmp < 0)
+            return new int[][] {Limbs.EMPTY, a};
+        if (cmp == 0)
+            return new int[][] {ONE, Limbs.EMPTY};
+
+        if (b.length == 1) {
+            if (Metrics.ENABLED)
+                Metrics.divisionStep(Metrics.Tier.SHORT_DIVISION, a.length, b.length);
+            return divideBySingleLimb(a, b[0]);
+        }
+        if (b.length < BURNIKEL_ZIEGLER_THRESHOLD || a.length - b.length < BURNIKEL_ZIEGLER_OFFSET) {
+            if (Metrics.ENABLED)
+                Metrics.divisionStep(Metrics.Tier.KNUTH, a.length, b.length);
+            return knuth(a, b);
+        }
+        if (Metrics.ENABLED)
+            Metrics.divisionStep(Metrics.Tier.BURNIKEL_ZIEGLER, a.length, b.length);
+        return burnikelZiegler(a, b);
+    }
+
+    //// short division
+    static int[][] divideBySingleLimb(int[] a, int d) {
+        int[] q = new int[a.length];
+        long rem = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            long t = rem * Limbs.BASE + a[i];
+            q[i] = (int) (t / d);
+            rem = t - (long) q[i] * d;
+        }
+        int[] r = rem == 0 ? Limbs.EMPTY : new int[] {(int) rem};
+        return new int[][] {Limbs.stripLeadingZeros(q), r};
+    }
+
+    //// Knuth, TAOCP vol. 2, 4.3.1, Algorithm D
+    static int[][] knuth(int[] a, int[] b) {
+        if (Limbs.compare(a, b) < 0)
+            return new int[][] {Limbs.EMPTY, a};
+        if (b.length == 1)
+            return divideBySingleLimb(a, b[0]);
+
+        final long base = Limbs.BASE;
+        int n = b.length;
+        int m = a.length - n;
+
+        // D1: scale both operands so that the top limb of the divisor is at least BASE / 2
+        int factor = (int) (base / (b[n - 1] + 1L));
+        int[] v = scale(b, n, factor);
+        int[] u = scale(a, a.length + 1, factor);
+
+        long vTop = v[n - 1];
+        long vNext = v[n - 2];
+        int[] q = new int[m + 1];
+        int corrections = 0;
+        int addBacks = 0;
+
+        for (int j = m; j >= 0; j--) {
+            // D3: estimate the quotient limb from the top two limbs
+            long num = u[j + n] * base + u[j + n - 1];
+            long qHat = num / vTop;
+            long rHat = num - qHat * vTop;
+            while (qHat >= base || qHat * vNext > rHat * base + u[j + n - 2]) {
+                qHat--;
+                corrections++;
+                rHat += vTop;
+                if (rHat >= base)
+                    break;
+            }
+
+            // D4: multiply and subtract, keeping a signed carry so the loop stays branch free;
+            // t > -BASE^2 because qHat < BASE at this point
+            long carry = 0;
+            for (int i = 0; i < n; i++) {
+                long t = u[i + j] + carry - qHat * v[i];
+                carry = (t + base * base) / base - base;
+                u[i + j] = (int) (t - carry * base);
+            }
+            long top = u[j + n] + carry;
+
+            // D6: the estimate was one too large, add the divisor back
+            if (top < 0) {
+                qHat--;
+                addBacks++;
+                long c = 0;
+                for (int i = 0; i < n; i++) {
+                    long t = (long) u[i + j] + v[i] + c;
+                    if (t >= base) {
+                        u[i + j] = (int) (t - base);
+                        c = 1;
+                    } else {
+                        u[i + j] = (int) t;
+                        c = 0;
+                    }
+                }
+                top += c;
+            }
+            u[j + n] = (int) top;
+            q[j] = (int) qHat;
+        }
+
+        if (Metrics.ENABLED)
+            Metrics.knuth(m + 1, corrections, addBacks);
+
+        // D8: unscale the remainder
+        int[] r = Limbs.stripLeadingZeros(Arrays.copyOf(u, n));
+        if (factor != 1)
+            r = divideBySingleLimb(r, factor)[0];
+        return new int[][] {Limbs.stripLeadingZeros(q), r};
+    }
+
+    private static int[] scale(int[] a, int length, int factor) {
+        int[] result = new int[length];
+        long carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            long t = (long) a[i] * factor + carry;
+            carry = t / Limbs.BASE;
+            result[i] = (int) (t - carry * Limbs.BASE);
+        }
+        if (a.length < length)
+            result[a.length] = (int) carry;
+        return result;
+    }
+
+    //// Burnikel-Ziegler, "Fast Recursive Division" (1998)
+    private static int[][] burnikelZiegler(int[] a, int[] b) {
+        int s = b.length;
+
+        // pad the divisor to n = j * m limbs, m a power of two, with a normalized top limb
+        int m = 1 << (32 - Integer.numberOfLeadingZeros(s / BURNIKEL_ZIEGLER_THRESHOLD));
+        int j = (s + m - 1) / m;
+        int n = j * m;
+        int shift = n - s;
+        int factor = Limbs.BASE / (b[s - 1] + 1);
+
+        int[] bs = shiftLeft(Limbs.multiplySmall(b, factor), shift);
+        int[] as = shiftLeft(Limbs.multiplySmall(a, factor), shift);
+
+        // number of n-limb blocks of a, leaving its top block below BASE^n / 2 <= bs
+        int t = (as.length + n - 1) / n;
+        if (as.length == t * n && as[as.length - 1] >= Limbs.BASE / 2)
+            t++;
+        t = Math.max(t, 2);
+
+        LimbView av = LimbView.of(as);
+        int[] q = new int[(t - 1) * n];
+        int[] z = join(av.slice((t - 1) * n, t * n).toArray(), av.slice((t - 2) * n, (t - 1) * n), n);
+        int[] r = Limbs.EMPTY;
+        for (int i = t - 2; i >= 0; i--) {
+            int[][] qr = divide2n1n(z, bs, n);
+            System.arraycopy(qr[0], 0, q, i * n, qr[0].length);
+            r = qr[1];
+            if (i > 0)
+                z = join(r, av.slice((i - 1) * n, i * n), n);
+        }
+
+        // undo the padding of the remainder
+        r = LimbView.of(r).high(shift).toArray();
+        if (factor != 1)
+            r = divideBySingleLimb(r, factor)[0];
+        return new int[][] {Limbs.stripLeadingZeros(q), r};
+    }
+
+    // a < b * BASE^n, b has exactly n limbs and a normalized top limb
+    private static int[][] divide2n1n(int[] a, int[] b, int n) {
+        if ((n & 1) != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD)
+            return knuth(a, b);
+
+        int half = n / 2;
+        LimbView av = LimbView.of(a);
+
+        int[][] qr1 = divide3n2n(av.high(half).toArray(), b, half);
+        int[][] qr2 = divide3n2n(join(qr1[1], av.low(half), half), b, half);
+
+        return new int[][] {join(qr1[0], LimbView.of(qr2[0]), half), qr2[1]};
+    }
+
+    // a < b * BASE^half, b has exactly 2 * half limbs and a normalized top limb
+    private static int[][] divide3n2n(int[] a, int[] b, int half) {
+        LimbView av = LimbView.of(a);
+        LimbView bv = LimbView.of(b);
+        int[] b1 = bv.high(half).toArray();
+        LimbView b2 = bv.low(half);
+        int[] a12 = av.high(half).toArray();
+
+        int[] q;
+        int[] r1;
+        if (Limbs.compare(av.high(2 * half).toArray(), b1) < 0) {
+            int[][] qr = divide2n1n(a12, b1, half);
+            q = qr[0];
+            r1 = qr[1];
+        } else {
+            // the quotient is BASE^half - 1 and r1 = a12 - q * b1
+            q = new int[half];
+            Arrays.fill(q, Limbs.BASE - 1);
+            r1 = Limbs.add(Limbs.subtract(a12, shiftLeft(b1, half)), b1);
+        }
+
+        int[] d = Multiplication.multiply(LimbView.of(q), b2);
+        int[] x = join(r1, av.low(half), half);
+
+        // r = x - d; while it would be negative add b back and lower q
+        if (Limbs.compare(x, d) >= 0)
+            return new int[][] {q, Limbs.subtract(x, d)};
+
+        int[] deficit = Limbs.subtract(d, x);
+        while (true) {
+            q = Limbs.subtract(q, ONE);
+            if (Limbs.compare(deficit, b) <= 0)
+                return new int[][] {q, Limbs.subtract(b, deficit)};
+            deficit = Limbs.subtract(deficit, b);
+        }
+    }
+
+    //// limb shifting
+    private static int[] shiftLeft(int[] a, int limbs) {
+        if (limbs == 0 || a.length == 0)
+            return a;
+        int[] result = new int[a.length + limbs];
+        System.arraycopy(a, 0, result, limbs, a.length);
+        return result;
+    }
+
+    // high * BASE^n + low, where low fits in n limbs
+    private static int[] join(int[] high, LimbView low, int n) {
+        int[] result = new int[n + high.length];
+        System.arraycopy(low.limbs, low.offset, result, 0, low.length);
+        System.arraycopy(high, 0, result, n, high.length);
+        return Limbs.stripLeadingZeros(result);
+    }
+}
@@ -0,0 +1,150 @@
+package bignumbers;
+
+// Division by a fixed divisor d of n limbs.
+// The constructor computes the reciprocal mu = floor(BASE^2n / d) once by
+// Newton iteration, each step doubling the number of correct limbs. After
+// that a dividend below BASE^2n is divided with Barrett's reduction (Menezes
+// et al., Handbook of Applied Cryptography, 14.42): the quotient estimate
+// comes from the top limbs times mu, is never too large and is at most two
+// too small, so it costs two multiplications and a couple of subtractions.
+// Longer dividends are consumed n limbs at a time from the top, like a
+// schoolbook division in base BASE^n. The two full products only pay off
+// once they reach the transform tier of Multiplication; shorter divisors are
+// left to Division, which is as fast there. The threshold can be overridden
+// with the system property bignumbers.divide.barrettThreshold. A Divisor is
+// immutable and can be shared between threads.
+public final class Divisor {
+
+    // measured on x86-64 (JDK 17): on par with Division from 300 limbs, ahead from about 1000
+    static final int BARRETT_THRESHOLD =
+            Integer.getInteger("bignumbers.divide.barrettThreshold", 1000);
+
+    // reciprocals of divisors this short are computed by a single division
+    private static final int NEWTON_THRESHOLD = 8;
+
+    private final BigNumber divisor;
+    private final int[] d;
+    private final int n;
+    // floor(BASE^2n / d), or null below BARRETT_THRESHOLD
+    private final int[] mu;
+
+    public Divisor(BigNumber divisor) {
+        if (divisor.signum() == 0)
+            throw new ArithmeticException("Division by zero");
+
+        this.divisor = divisor;
+        d = divisor.magnitude();
+        n = d.length;
+        mu = n < BARRETT_THRESHOLD ? null : reciprocal(d);
+    }
+
+    public BigNumber getDivisor() {
+        return divisor;
+    }
+
+    //// public operations, with the truncation and signs of BigNumber.divideAndRemainder
+    public BigNumber divide(BigNumber a) {
+        return divideAndRemainder(a)[0];
+    }
+
+    public BigNumber remainder(BigNumber a) {
+        return divideAndRemainder(a)[1];
+    }
+
+    public BigNumber[] divideAndRemainder(BigNumber a) {
+        int[][] qr = divideAndRemainder(a.magnitude());
+        boolean negative = a.signum() < 0;
+        return new BigNumber[] {
+                BigNumber.fromMagnitude(qr[0], negative != divisor.signum() < 0),
+                BigNumber.fromMagnitude(qr[1], negative)};
+    }
+
+    // {quotient, remainder} of magnitudes
+    int[][] divideAndRemainder(int[] a) {
+        if (mu == null || Limbs.compare(a, d) < 0)
+            return Division.divideAndRemainder(a, d);
+        if (a.length <= 2 * n)
+            return barrett(a);
+
+        // base BASE^n schoolbook: every step divides r * BASE^n + the next n limbs, which is below d * BASE^n
+        int[] q = new int[a.length];
+        int[] r = Limbs.EMPTY;
+        for (int from = (a.length - 1) / n * n; from >= 0; from -= n) {
+            int to = Math.min(from + n, a.length);
+            int[] x = new int[n + r.length];
+            System.arraycopy(a, from, x, 0, to - from);
+            System.arraycopy(r, 0, x, n, r.length);
+            int[][] qr = barrett(Limbs.stripLeadingZeros(x));
+            System.arraycopy(qr[0], 0, q, from, qr[0].length);
+            r = qr[1];
+        }
+        return new int[][] {Limbs.stripLeadingZeros(q), r};
+    }
+
+    //// Barrett
+    // x < BASE^2n
+    private int[][] barrett(int[] x) {
+        if (Limbs.compare(x, d) < 0)
+            return new int[][] {Limbs.EMPTY, x};
+
+        LimbView top = LimbView.of(x).high(n - 1);
+        int[] q = LimbView.of(Multiplication.multiply(top, LimbView.of(mu))).high(n + 1).toArray();
+        int[] r = Limbs.subtract(x, Multiplication.multiply(q, d));
+        while (Limbs.compare(r, d) >= 0) {
+            r = Limbs.subtract(r, d);
+            q = Limbs.add(q, new int[] {1});
+        }
+        return new int[][] {q, r};
+    }
+
+    //// Newton reciprocal
+    // floor(BASE^2n / d) for d of n limbs. The reciprocal of the top h limbs, h a
+    // little over n / 2, is shifted into place as the first estimate x, which one
+    // step x + x (BASE^2n - d x) / BASE^2n makes accurate to a few units; the
+    // remainder BASE^2n - d x then fixes the last ones.
+    static int[] reciprocal(int[] d) {
+        int n = d.length;
+        int[] power = new int[2 * n + 1];
+        power[2 * n] = 1;
+        if (n < NEWTON_THRESHOLD)
+            return Division.divideAndRemainder(power, d)[0];
+
+        int h = (n + 5) / 2;
+        int[] dh = LimbView.of(d).high(n - h).toArray();
+        BigNumber x = BigNumber.fromMagnitude(Limbs.shiftLeftDecimal(reciprocal(dh), (n - h) * Limbs.DIGITS), false);
+
+        BigNumber bd = BigNumber.fromMagnitude(d, false);
+        BigNumber bp = BigNumber.fromMagnitude(power, false);
+        BigNumber e = bp.subtract(bd.multiply(x));
+        x = x.add(BigNumber.fromMagnitude(shiftRight(x.multiply(e).abs().magnitude(), 2 * n), e.signum() < 0));
+
+        BigNumber r = bp.subtract(bd.multiply(x));
+        while (r.signum() < 0) {
+            x = x.subtract(BigNumber.ONE);
+            r = r.add(bd);
+        }
+        while (r.compareTo(bd) >= 0) {
+            x = x.add(BigNumber.ONE);
+            r = r.subtract(bd);
+        }
+        return x.magnitude();
+    }
+
+    // floor(10^digits / d): the reciprocal of d with the low limbs padded by zeros,
+    // floor(BASE^(2n + t) / d), has at least as many digits, and the surplus is cut off
+    static int[] reciprocal(int[] d, int digits) {
+        // 10^digits < d
+        if (digits < Limbs.digitCount(d) - 1)
+            return Limbs.EMPTY;
+
+        long n = d.length;
+        int t = (int) Math.max(0, (digits - 2 * n * Limbs.DIGITS + Limbs.DIGITS - 1) / Limbs.DIGITS);
+        int[] padded = t == 0 ? d : Limbs.shiftLeftDecimal(d, t * Limbs.DIGITS);
+        return Limbs.shiftRightDecimal(reciprocal(padded), (int) ((2 * n + t) * Limbs.DIGITS - digits));
+    }
+
+    // a / BASE^k
+    private static int[] shiftRight(int[] a, int k) {
+        return LimbView.of(a).high(k).toArray();
+    }
+}
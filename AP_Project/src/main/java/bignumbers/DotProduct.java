@@ -0,0 +1,160 @@
+package bignumbers;
+
+import java.util.Arrays;
+
+// Sums of products, a0 b0 + a1 b1 + ... (+ c), without a BigNumber per step.
+// Every term is added into one buffer of long columns, one for positive and one
+// for negative terms: a product below KARATSUBA_THRESHOLD limbs is computed
+// column by column like Multiplication.schoolbook and its limbs go straight
+// into the buffer, longer products are computed by Multiplication and then
+// added. Each term adds less than BASE to a column, so a long column could
+// take 9 * 10^9 terms, more than an array holds, and the carries are resolved
+// in a single pass at the end. The result is the difference of the two buffers.
+// A single a b + c needs no columns: the product goes into an array with room
+// for the carry, and c is added or subtracted in place.
+final class DotProduct {
+
+    private DotProduct() {
+    }
+
+    // a b + c, or a b - c
+    static BigNumber multiplyAdd(BigNumber a, BigNumber b, BigNumber c, boolean subtract) {
+        int[] x = a.magnitude();
+        int[] y = b.magnitude();
+        if (x.length == 0 || y.length == 0)
+            return subtract ? c.negate() : c;
+        int[] z = c.magnitude();
+        boolean negative = a.signum() != b.signum();
+        boolean addendNegative = (c.signum() < 0) != subtract;
+
+        int[] r;
+        if (Math.min(x.length, y.length) < Multiplication.KARATSUBA_THRESHOLD) {
+            r = new int[Math.max(x.length + y.length, z.length) + 1];
+            Multiplication.schoolbook(LimbView.of(x), LimbView.of(y), r);
+        } else {
+            int[] p = Multiplication.multiply(x, y);
+            r = Arrays.copyOf(p, Math.max(p.length, z.length) + 1);
+        }
+
+        if (z.length == 0 || negative == addendNegative) {
+            Limbs.addInto(r, 0, z);
+            return BigNumber.fromMagnitude(Limbs.stripLeadingZeros(r), negative);
+        }
+        r = Limbs.stripLeadingZeros(r);
+        int cmp = Limbs.compare(r, z);
+        if (cmp == 0)
+            return BigNumber.ZERO;
+        if (cmp > 0)
+            return BigNumber.fromMagnitude(Limbs.subtract(r, z), negative);
+        return BigNumber.fromMagnitude(Limbs.subtract(z, r), !negative);
+    }
+
+    // the sum of a[i] b[i], plus or minus c (may be null)
+    static BigNumber dot(BigNumber[] a, BigNumber[] b, BigNumber c, boolean subtract) {
+        if (a.length != b.length)
+            throw new IllegalArgumentException("Lengths differ: " + a.length + " and " + b.length);
+
+        int[][] x = new int[a.length][];
+        int[][] y = new int[a.length][];
+        int length = 0;
+        for (int i = 0; i < a.length; i++) {
+            x[i] = a[i].magnitude();
+            y[i] = b[i].magnitude();
+            if (x[i].length != 0 && y[i].length != 0)
+                length = Math.max(length, x[i].length + y[i].length);
+        }
+        int[] z = c == null ? Limbs.EMPTY : c.magnitude();
+        length = Math.max(length, z.length);
+
+        // three limbs on top take the carries of up to 2^31 terms
+        long[] positive = null;
+        long[] negative = null;
+        for (int i = 0; i < a.length; i++) {
+            if (x[i].length == 0 || y[i].length == 0)
+                continue;
+            if (a[i].signum() == b[i].signum()) {
+                if (positive == null)
+                    positive = new long[length + 3];
+                addProduct(positive, x[i], y[i]);
+            } else {
+                if (negative == null)
+                    negative = new long[length + 3];
+                addProduct(negative, x[i], y[i]);
+            }
+        }
+        if (z.length != 0) {
+            if ((c.signum() < 0) == subtract) {
+                if (positive == null)
+                    positive = new long[length + 3];
+                add(positive, z);
+            } else {
+                if (negative == null)
+                    negative = new long[length + 3];
+                add(negative, z);
+            }
+        }
+
+        int[] p = carry(positive);
+        int[] n = carry(negative);
+        int cmp = Limbs.compare(p, n);
+        if (cmp == 0)
+            return BigNumber.ZERO;
+        if (cmp > 0)
+            return BigNumber.fromMagnitude(Limbs.subtract(p, n), false);
+        return BigNumber.fromMagnitude(Limbs.subtract(n, p), true);
+    }
+
+    //// kernels
+    // x y into the columns; the limbs of a short product are added as soon as
+    // they are complete, like in Multiplication.schoolbook
+    private static void addProduct(long[] sum, int[] x, int[] y) {
+        if (x.length < y.length) {
+            int[] t = x;
+            x = y;
+            y = t;
+        }
+        if (y.length >= Multiplication.KARATSUBA_THRESHOLD) {
+            add(sum, Multiplication.multiply(x, y));
+            return;
+        }
+
+        int xLen = x.length;
+        int yLen = y.length;
+        long carry = 0;
+        for (int k = 0; k < xLen + yLen - 1; k++) {
+            int i = Math.max(0, k - yLen + 1);
+            int last = Math.min(k, xLen - 1);
+            long acc = carry;
+            long high = 0;
+            while (i <= last) {
+                int end = Math.min(i + 8, last + 1);
+                for (; i < end; i++)
+                    acc += (long) x[i] * y[k - i];
+                high += acc / Limbs.BASE;
+                acc %= Limbs.BASE;
+            }
+            sum[k] += acc;
+            carry = high;
+        }
+        sum[xLen + yLen - 1] += carry;
+    }
+
+    private static void add(long[] sum, int[] z) {
+        for (int i = 0; i < z.length; i++)
+            sum[i] += z[i];
+    }
+
+    // the deferred carry pass, to a normalized magnitude
+    private static int[] carry(long[] sum) {
+        if (sum == null)
+            return Limbs.EMPTY;
+        int[] r = new int[sum.length];
+        long carry = 0;
+        for (int i = 0; i < sum.length; i++) {
+            long t = sum[i] + carry;
+            carry = t / Limbs.BASE;
+            r[i] = (int) (t - carry * Limbs.BASE);
+        }
+        return Limbs.stripLeadingZeros(r);
+    }
+}
@@ -0,0 +1,133 @@
+package bignumbers;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+// Factorials and binomial coefficients through their prime factorizations.
+// factorial uses Luschny's prime swing: n! = ((n/2)!)^2 * swing(n), where the
+// swing number n! / ((n/2)!)^2 is the product of p^e over the primes p <= n
+// with e = sum of floor(n / p^i) mod 2. binomial reads the exponent of every
+// prime off Legendre's formula. In both cases the prime powers are packed
+// into longs and multiplied by a ProductTree, and factorial computes the
+// swing number and the smaller factorial in parallel.
+final class Factorials {
+
+    // 20! is the largest factorial that fits in a long
+    private static final int LONG_LIMIT = 20;
+
+    private Factorials() {
+    }
+
+    static BigNumber factorial(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Negative argument");
+        if (n <= LONG_LIMIT)
+            return BigNumber.fromLong(smallFactorial(n));
+
+        int[] primes = Primes.upTo(n);
+        return ProductTree.invoke(new FactorialTask(n, primes));
+    }
+
+    // zero for k outside [0, n]
+    static BigNumber binomial(int n, int k) {
+        if (n < 0)
+            throw new IllegalArgumentException("Negative argument");
+        if (k < 0 || k > n)
+            return BigNumber.ZERO;
+        k = Math.min(k, n - k);
+        if (k == 0)
+            return BigNumber.ONE;
+
+        int[] primes = Primes.upTo(n);
+        PowerPacker packer = new PowerPacker(primes.length);
+        for (int p : primes) {
+            if (p > n - k) {
+                // primes in (n - k, n] divide the numerator exactly once
+                packer.add(p, 1);
+            } else if (p > n / 2) {
+                // none of these divide the binomial
+                continue;
+            } else {
+                int e = 0;
+                for (long q = p; q <= n; q *= p)
+                    e += (int) (n / q - k / q - (n - k) / q);
+                packer.add(p, e);
+            }
+        }
+        return ProductTree.product(packer.values());
+    }
+
+    private static long smallFactorial(int n) {
+        long f = 1;
+        for (int i = 2; i <= n; i++)
+            f *= i;
+        return f;
+    }
+
+    // n! / ((n / 2)!)^2
+    private static BigNumber swing(int n, int[] primes) {
+        PowerPacker packer = new PowerPacker(primes.length);
+        for (int p : primes) {
+            if (p > n)
+                break;
+            int e = 0;
+            for (long q = p; q <= n; q *= p)
+                e += (int) (n / q) & 1;
+            packer.add(p, e);
+        }
+        return ProductTree.product(packer.values());
+    }
+
+    private static final class FactorialTask extends RecursiveTask<BigNumber> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+        private final int[] primes;
+
+        FactorialTask(int n, int[] primes) {
+            this.n = n;
+            this.primes = primes;
+        }
+
+        @Override
+        protected BigNumber compute() {
+            if (n <= LONG_LIMIT)
+                return BigNumber.fromLong(smallFactorial(n));
+
+            FactorialTask half = new FactorialTask(n / 2, primes);
+            half.fork();
+            BigNumber swing = swing(n, primes);
+            BigNumber h = half.join();
+            return h.square().multiply(swing);
+        }
+    }
+
+    // packs p^e factors into longs below 2^63, so the product tree gets few, full leaves
+    private static final class PowerPacker {
+        private long[] values;
+        private int count;
+        private long current = 1;
+
+        PowerPacker(int capacity) {
+            values = new long[Math.max(capacity, 1)];
+        }
+
+        void add(long p, int e) {
+            for (int i = 0; i < e; i++) {
+                if (current > Long.MAX_VALUE / p) {
+                    if (count == values.length)
+                        values = Arrays.copyOf(values, 2 * count);
+                    values[count++] = current;
+                    current = 1;
+                }
+                current *= p;
+            }
+        }
+
+        long[] values() {
+            long[] result = Arrays.copyOf(values, count + 1);
+            result[count] = current;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package bignumbers;
+
+// Greatest common divisors and modular inverses with Lehmer's algorithm.
+// The leading 18 digits of both operands drive a run of single precision
+// Euclid steps (Knuth, TAOCP vol. 2, 4.5.2, Algorithm L) whose quotients are
+// collected in a 2x2 cofactor matrix; the matrix is then applied to the full
+// operands in one linear pass, replacing up to a dozen divisions. Cofactors
+// are kept below BASE, so a limb times a cofactor fits in a long. When a run
+// makes no progress, or the operands differ in length, a full division step
+// is taken instead.
+final class Gcd {
+
+    // leading digits used for a Lehmer run; 10^18 < 2^63
+    private static final int LEADING_DIGITS = 18;
+
+    private Gcd() {
+    }
+
+    static int[] gcd(int[] a, int[] b) {
+        if (Limbs.compare(a, b) < 0) {
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+
+        // a >= b
+        while (b.length != 0) {
+            if (Limbs.fitsInLong(a, false))
+                return Limbs.fromLong(gcd(Limbs.toLong(a, false), Limbs.toLong(b, false)));
+
+            long[] m = a.length == b.length ? lehmer(a, b) : null;
+            if (m == null) {
+                int[] r = Division.divideAndRemainder(a, b)[1];
+                a = b;
+                b = r;
+            } else {
+                int[] x = combine(a, b, m[0], m[1]);
+                b = combine(a, b, m[2], m[3]);
+                a = x;
+            }
+        }
+        return a;
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    // a^-1 mod m for 0 <= a < m, tracking the cofactor of a alongside the remainders:
+    // r0 = s0 * a and r1 = s1 * a modulo m at every step
+    static BigNumber modInverse(BigNumber a, BigNumber modulus) {
+        int[] r0 = modulus.magnitude();
+        int[] r1 = a.magnitude();
+        BigNumber s0 = BigNumber.ZERO;
+        BigNumber s1 = BigNumber.ONE;
+
+        while (r1.length != 0) {
+            long[] m = r0.length == r1.length && !Limbs.fitsInLong(r0, false) ? lehmer(r0, r1) : null;
+            if (m == null) {
+                int[][] qr = Division.divideAndRemainder(r0, r1);
+                BigNumber s = s0.subtract(BigNumber.fromMagnitude(qr[0], false).multiply(s1));
+                r0 = r1;
+                r1 = qr[1];
+                s0 = s1;
+                s1 = s;
+            } else {
+                int[] x = combine(r0, r1, m[0], m[1]);
+                r1 = combine(r0, r1, m[2], m[3]);
+                r0 = x;
+                BigNumber s = s0.multiply(BigNumber.fromLong(m[0])).add(s1.multiply(BigNumber.fromLong(m[1])));
+                s1 = s0.multiply(BigNumber.fromLong(m[2])).add(s1.multiply(BigNumber.fromLong(m[3])));
+                s0 = s;
+            }
+        }
+
+        if (r0.length != 1 || r0[0] != 1)
+            throw new ArithmeticException("BigNumber not invertible.");
+        return s0.mod(modulus);
+    }
+
+    //// Lehmer
+    // the cofactors {A, B, C, D} of a run on a >= b, or null if the run made no step
+    private static long[] lehmer(int[] a, int[] b) {
+        int shift = Limbs.digitCount(a) - LEADING_DIGITS;
+        long x = leading(a, shift);
+        long y = leading(b, shift);
+
+        long ca = 1, cb = 0, cc = 0, cd = 1;
+        while (y + cc != 0 && y + cd != 0) {
+            long q = (x + ca) / (y + cc);
+            if (q != (x + cb) / (y + cd) || q >= Limbs.BASE)
+                break;
+            // the cofactors alternate in sign, so their magnitudes only add up
+            long nc = ca - q * cc;
+            long nd = cb - q * cd;
+            if (Math.abs(nc) >= Limbs.BASE || Math.abs(nd) >= Limbs.BASE)
+                break;
+
+            ca = cc;
+            cb = cd;
+            cc = nc;
+            cd = nd;
+            long t = x - q * y;
+            x = y;
+            y = t;
+        }
+        return cb == 0 ? null : new long[] {ca, cb, cc, cd};
+    }
+
+    // floor(a / 10^shift), which has at most LEADING_DIGITS digits
+    private static long leading(int[] a, int shift) {
+        int q = shift / Limbs.DIGITS;
+        int r = shift % Limbs.DIGITS;
+        long high = limb(a, q + 2);
+        long mid = limb(a, q + 1);
+        long low = limb(a, q);
+        return high * Limbs.pow10(Limbs.DIGITS - r) * Limbs.BASE
+                + mid * Limbs.pow10(Limbs.DIGITS - r) + low / Limbs.pow10(r);
+    }
+
+    private static long limb(int[] a, int i) {
+        return i < a.length ? a[i] : 0;
+    }
+
+    // x * a + y * b for |x|, |y| < BASE, where the result is known not to be negative
+    private static int[] combine(int[] a, int[] b, long x, long y) {
+        int[] r = new int[Math.max(a.length, b.length) + 1];
+        long carry = 0;
+        for (int i = 0; i < r.length - 1; i++) {
+            long t = x * limb(a, i) + y * limb(b, i) + carry;
+            carry = Math.floorDiv(t, Limbs.BASE);
+            r[i] = (int) (t - carry * Limbs.BASE);
+        }
+        r[r.length - 1] = (int) carry;
+        return Limbs.stripLeadingZeros(r);
+    }
+}
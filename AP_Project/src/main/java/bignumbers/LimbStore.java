@@ -0,0 +1,235 @@
+package bignumbers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Limbs outside the Java heap, for numbers too long to keep in an int[].
+// The limbs live in segments of SEGMENT_LIMBS limbs, each a direct ByteBuffer
+// or, once the store is larger than MAP_THRESHOLD bytes, a region of a
+// temporary file mapped into memory, so that the operating system pages it
+// instead of the heap or the direct memory limit holding it. The direct memory
+// limit defaults to the maximum heap size, so the threshold is a quarter of
+// that, and a store that still does not fit in direct memory is mapped as
+// well. Kernels move whole ranges between the store and heap chunks (read and
+// write), which keeps the segment arithmetic out of their inner loops. close()
+// frees the memory right away and deletes the file instead of leaving that to
+// the garbage collector; accesses hold a read lock and close the write lock,
+// so a close racing with another thread makes that thread fail with an
+// IllegalStateException rather than touch freed memory. The threshold can be
+// overridden with the system property bignumbers.offheap.mapThreshold.
+final class LimbStore implements Closeable {
+
+    static final int SEGMENT_SHIFT = 20;
+    static final int SEGMENT_LIMBS = 1 << SEGMENT_SHIFT;
+    static final long MAP_THRESHOLD = Long.getLong("bignumbers.offheap.mapThreshold", Runtime.getRuntime().maxMemory() / 4);
+
+    // Unsafe.invokeCleaner, which unmaps or frees a buffer at once; null where it is missing
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            Field field = c.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the buffers are left to the garbage collector
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final ByteBuffer[] buffers;
+    private final IntBuffer[] segments;
+    // the temporary file behind mapped segments, null for direct memory
+    private final Path file;
+    private long length;
+    private volatile boolean closed;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private LimbStore(ByteBuffer[] buffers, Path file, long length) {
+        this.buffers = buffers;
+        this.file = file;
+        this.length = length;
+        segments = new IntBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++)
+            segments[i] = buffers[i].order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    // length zero limbs
+    static LimbStore allocate(long length) {
+        int count = (int) ((length + SEGMENT_LIMBS - 1) >>> SEGMENT_SHIFT);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        if (4 * length <= MAP_THRESHOLD) {
+            try {
+                for (int i = 0; i < count; i++)
+                    buffers[i] = ByteBuffer.allocateDirect(4 * segmentLength(length, i));
+                return new LimbStore(buffers, null, length);
+            } catch (OutOfMemoryError e) {
+                // over the direct memory limit: map a file instead
+                release(buffers);
+            }
+        }
+
+        Path file = null;
+        try {
+            file = Files.createTempFile("bignumbers", ".limbs");
+            // a mapping stays valid after its channel is closed; the file grows to hold it
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < count; i++)
+                    buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            4L * i * SEGMENT_LIMBS, 4L * segmentLength(length, i));
+            }
+            return new LimbStore(buffers, file, length);
+        } catch (IOException e) {
+            release(buffers);
+            deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int segmentLength(long length, int i) {
+        return (int) Math.min(SEGMENT_LIMBS, length - ((long) i << SEGMENT_SHIFT));
+    }
+
+    //// access
+    long length() {
+        return length;
+    }
+
+    // drops limbs on top, e.g. zero limbs after an operation; the memory stays allocated until close
+    void truncate(long newLength) {
+        length = Math.min(length, newLength);
+    }
+
+    int get(long i) {
+        acquire();
+        try {
+            return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & (SEGMENT_LIMBS - 1)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(long i, int limb) {
+        acquire();
+        try {
+            segments[(int) (i >>> SEGMENT_SHIFT)].put((int) (i & (SEGMENT_LIMBS - 1)), limb);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // limbs [from, from + len) into dst[0, len); limbs past the length read as zero
+    void read(long from, int[] dst, int len) {
+        acquire();
+        int available = (int) Math.max(0, Math.min(len, length - from));
+        try {
+            int done = 0;
+            while (done < available) {
+                long i = from + done;
+                IntBuffer segment = segments[(int) (i >>> SEGMENT_SHIFT)].duplicate();
+                segment.position((int) (i & (SEGMENT_LIMBS - 1)));
+                int n = Math.min(available - done, segment.remaining());
+                segment.get(dst, done, n);
+                done += n;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.fill(dst, available, len, 0);
+    }
+
+    // src[0, len) into limbs [from, from + len)
+    void write(long from, int[] src, int len) {
+        acquire();
+        try {
+            int done = 0;
+            while (done < len) {
+                long i = from + done;
+                IntBuffer segment = segments[(int) (i >>> SEGMENT_SHIFT)].duplicate();
+                segment.position((int) (i & (SEGMENT_LIMBS - 1)));
+                int n = Math.min(len - done, segment.remaining());
+                segment.put(src, done, n);
+                done += n;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // takes the read lock of an open store; the caller unlocks
+    private void acquire() {
+        lock.readLock().lock();
+        if (closed) {
+            lock.readLock().unlock();
+            throw released();
+        }
+    }
+
+    // for operations that allocate their result before they read this store
+    void checkOpen() {
+        if (closed)
+            throw released();
+    }
+
+    private static IllegalStateException released() {
+        return new IllegalStateException("Limbs already released");
+    }
+
+    //// release
+    // waits for accesses in progress on other threads
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            Arrays.fill(segments, null);
+            release(buffers);
+            deleteQuietly(file);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void release(ByteBuffer[] buffers) {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] != null && INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffers[i]);
+                } catch (ReflectiveOperationException e) {
+                    // left to the garbage collector
+                }
+            }
+            buffers[i] = null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null)
+            return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bignumbers;
+
+// Read-only window over a range of limbs of some magnitude array.
+// Slicing never copies, so splitting algorithms can hand sub-ranges of
+// their operands around for free. The length never counts zero limbs on
+// top of the window.
+final class LimbView {
+
+    static final LimbView ZERO = new LimbView(Limbs.EMPTY, 0, 0);
+
+    final int[] limbs;
+    final int offset;
+    final int length;
+
+    private LimbView(int[] limbs, int offset, int length) {
+        this.limbs = limbs;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    static LimbView of(int[] limbs) {
+        return of(limbs, 0, limbs.length);
+    }
+
+    static LimbView of(int[] limbs, int offset, int length) {
+        while (length > 0 && limbs[offset + length - 1] == 0)
+            length--;
+        return length == 0 ? ZERO : new LimbView(limbs, offset, length);
+    }
+
+    int get(int i) {
+        return i < length ? limbs[offset + i] : 0;
+    }
+
+    boolean isZero() {
+        return length == 0;
+    }
+
+    // limbs [from, to) of this view; positions past the end read as zero
+    LimbView slice(int from, int to) {
+        to = Math.min(to, length);
+        if (from >= to)
+            return ZERO;
+        return of(limbs, offset + from, to - from);
+    }
+
+    LimbView low(int n) {
+        return slice(0, n);
+    }
+
+    LimbView high(int n) {
+        return slice(n, length);
+    }
+
+    int compareTo(LimbView val) {
+        return Limbs.compare(limbs, offset, length, val.limbs, val.offset, val.length);
+    }
+
+    int[] toArray() {
+        if (offset == 0 && length == limbs.length)
+            return limbs;
+        int[] result = new int[length];
+        System.arraycopy(limbs, offset, result, 0, length);
+        return result;
+    }
+}
@@ -0,0 +1,341 @@
+package bignumbers;
+
+// Magnitude kernels over packed decimal limbs.
+// A magnitude is an int[] of base 10^9 limbs, least significant limb first,
+// with no zero limbs at the top. Zero is the empty array.
+final class Limbs {
+
+    static final int BASE = 1000000000;
+    static final int DIGITS = 9;
+
+    static final int[] EMPTY = new int[0];
+
+    private static final int[] POWERS_OF_TEN = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+    private Limbs() {
+    }
+
+    static int pow10(int n) {
+        return POWERS_OF_TEN[n];
+    }
+
+    //// normalization
+    static int[] stripLeadingZeros(int[] a) {
+        int len = a.length;
+        while (len > 0 && a[len - 1] == 0)
+            len--;
+        if (len == a.length)
+            return a;
+        if (len == 0)
+            return EMPTY;
+
+        int[] result = new int[len];
+        System.arraycopy(a, 0, result, 0, len);
+        return result;
+    }
+
+    static int[] fromLong(long val) {
+        if (val == 0)
+            return EMPTY;
+
+        // works on negative values too, so Long.MIN_VALUE needs no special case
+        int[] limbs = new int[3];
+        int n = 0;
+        while (val != 0) {
+            limbs[n++] = Math.abs((int) (val % BASE));
+            val /= BASE;
+        }
+        return stripLeadingZeros(limbs);
+    }
+
+    // magnitudes of Long.MAX_VALUE and Long.MIN_VALUE
+    private static final int[] LONG_MAX = {854775807, 223372036, 9};
+    private static final int[] LONG_MIN = {854775808, 223372036, 9};
+
+    static boolean fitsInLong(int[] a, boolean negative) {
+        return compare(a, negative ? LONG_MIN : LONG_MAX) <= 0;
+    }
+
+    // a must fit (see fitsInLong); accumulates negatively so that Long.MIN_VALUE works
+    static long toLong(int[] a, boolean negative) {
+        long v = 0;
+        for (int i = a.length - 1; i >= 0; i--)
+            v = v * BASE - a[i];
+        return negative ? v : -v;
+    }
+
+    // digits are least significant first, every entry already validated to be 0..9
+    static int[] fromDecimalDigits(byte[] digits) {
+        int len = digits.length;
+        while (len > 0 && digits[len - 1] == 0)
+            len--;
+        if (len == 0)
+            return EMPTY;
+
+        int[] limbs = new int[(len + DIGITS - 1) / DIGITS];
+        for (int i = 0; i < limbs.length; i++) {
+            int from = i * DIGITS;
+            int to = Math.min(from + DIGITS, len);
+            int limb = 0;
+            for (int j = to - 1; j >= from; j--)
+                limb = limb * 10 + digits[j];
+            limbs[i] = limb;
+        }
+        return limbs;
+    }
+
+    //// decimal output
+    static int digitCount(int[] a) {
+        if (a.length == 0)
+            return 1;
+        return (a.length - 1) * DIGITS + digitCount(a[a.length - 1]);
+    }
+
+    static int digitCount(int limb) {
+        int n = 1;
+        while (n < DIGITS && limb >= POWERS_OF_TEN[n])
+            n++;
+        return n;
+    }
+
+    static String toDecimalString(int[] a, boolean negative) {
+        if (a.length == 0)
+            return "0";
+
+        int offset = negative ? 1 : 0;
+        char[] chars = new char[offset + digitCount(a)];
+        if (negative)
+            chars[0] = '-';
+
+        int top = a[a.length - 1];
+        int pos = offset + digitCount(top);
+        for (int p = pos - 1; p >= offset; p--) {
+            chars[p] = (char) ('0' + top % 10);
+            top /= 10;
+        }
+        for (int i = a.length - 2; i >= 0; i--) {
+            int limb = a[i];
+            pos += DIGITS;
+            for (int p = pos - 1; p > pos - 1 - DIGITS; p--) {
+                chars[p] = (char) ('0' + limb % 10);
+                limb /= 10;
+            }
+        }
+        return new String(chars);
+    }
+
+    //// comparison
+    static int compare(int[] a, int[] b) {
+        return compare(a, 0, a.length, b, 0, b.length);
+    }
+
+    // both ranges must be free of zero limbs on top
+    static int compare(int[] a, int aOff, int aLen, int[] b, int bOff, int bLen) {
+        if (aLen != bLen)
+            return aLen > bLen ? 1 : -1;
+
+        for (int i = aLen - 1; i >= 0; i--) {
+            int x = a[aOff + i];
+            int y = b[bOff + i];
+            if (x != y)
+                return x > y ? 1 : -1;
+        }
+        return 0;
+    }
+
+    //// addition & subtraction
+    static int[] add(int[] a, int[] b) {
+        return add(a, 0, a.length, b, 0, b.length);
+    }
+
+    static int[] add(LimbView a, LimbView b) {
+        return add(a.limbs, a.offset, a.length, b.limbs, b.offset, b.length);
+    }
+
+    static int[] add(int[] a, int aOff, int aLen, int[] b, int bOff, int bLen) {
+        if (aLen < bLen) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+            int t = aOff;
+            aOff = bOff;
+            bOff = t;
+            t = aLen;
+            aLen = bLen;
+            bLen = t;
+        }
+
+        int[] result = new int[aLen + 1];
+        int carry = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            int sum = a[aOff + i] + b[bOff + i] + carry;
+            if (sum >= BASE) {
+                result[i] = sum - BASE;
+                carry = 1;
+            } else {
+                result[i] = sum;
+                carry = 0;
+            }
+        }
+        for (; i < aLen; i++) {
+            int sum = a[aOff + i] + carry;
+            if (sum >= BASE) {
+                result[i] = sum - BASE;
+                carry = 1;
+            } else {
+                result[i] = sum;
+                carry = 0;
+            }
+        }
+        result[i] = carry;
+        return stripLeadingZeros(result);
+    }
+
+    // a must not be smaller than b
+    static int[] subtract(int[] a, int[] b) {
+        return subtract(a, 0, a.length, b, 0, b.length);
+    }
+
+    static int[] subtract(LimbView a, LimbView b) {
+        return subtract(a.limbs, a.offset, a.length, b.limbs, b.offset, b.length);
+    }
+
+    static int[] subtract(int[] a, int aOff, int aLen, int[] b, int bOff, int bLen) {
+        int[] result = new int[aLen];
+        int borrow = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            int diff = a[aOff + i] - b[bOff + i] - borrow;
+            if (diff < 0) {
+                result[i] = diff + BASE;
+                borrow = 1;
+            } else {
+                result[i] = diff;
+                borrow = 0;
+            }
+        }
+        for (; i < aLen; i++) {
+            int diff = a[aOff + i] - borrow;
+            if (diff < 0) {
+                result[i] = diff + BASE;
+                borrow = 1;
+            } else {
+                result[i] = diff;
+                borrow = 0;
+            }
+        }
+        return stripLeadingZeros(result);
+    }
+
+    // adds src[srcOff, srcOff + srcLen) into r starting at limb off, propagating the carry;
+    // r must be long enough to hold the sum
+    static void addInto(int[] r, int off, int[] src, int srcOff, int srcLen) {
+        int carry = 0;
+        int i = 0;
+        for (; i < srcLen; i++) {
+            int sum = r[off + i] + src[srcOff + i] + carry;
+            if (sum >= BASE) {
+                r[off + i] = sum - BASE;
+                carry = 1;
+            } else {
+                r[off + i] = sum;
+                carry = 0;
+            }
+        }
+        for (int j = off + i; carry != 0; j++) {
+            int sum = r[j] + 1;
+            if (sum == BASE) {
+                r[j] = 0;
+            } else {
+                r[j] = sum;
+                carry = 0;
+            }
+        }
+    }
+
+    static void addInto(int[] r, int off, int[] src) {
+        addInto(r, off, src, 0, src.length);
+    }
+
+    //// single limb multiplication & division
+    // 0 <= m < BASE
+    static int[] multiplySmall(int[] a, int m) {
+        if (a.length == 0 || m == 0)
+            return EMPTY;
+
+        int[] result = new int[a.length + 1];
+        long carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            long t = (long) a[i] * m + carry;
+            result[i] = (int) (t % BASE);
+            carry = t / BASE;
+        }
+        result[a.length] = (int) carry;
+        return stripLeadingZeros(result);
+    }
+
+    // 0 < d < BASE, the remainder is dropped
+    static int[] divideSmall(int[] a, int d) {
+        if (a.length == 0)
+            return EMPTY;
+
+        int[] result = new int[a.length];
+        long rem = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            long t = rem * BASE + a[i];
+            result[i] = (int) (t / d);
+            rem = t % d;
+        }
+        return stripLeadingZeros(result);
+    }
+
+    // a mod d for 0 < d < BASE
+    static int remainderSmall(int[] a, int d) {
+        long rem = 0;
+        for (int i = a.length - 1; i >= 0; i--)
+            rem = (rem * BASE + a[i]) % d;
+        return (int) rem;
+    }
+
+    //// decimal shifts
+    // number of trailing zero digits of a non-zero a
+    static int trailingZeroDigits(int[] a) {
+        int i = 0;
+        while (a[i] == 0)
+            i++;
+        int n = i * DIGITS;
+        for (int limb = a[i]; limb % 10 == 0; limb /= 10)
+            n++;
+        return n;
+    }
+
+    // a * 10^n
+    static int[] shiftLeftDecimal(int[] a, int n) {
+        if (a.length == 0)
+            return EMPTY;
+        int[] m = multiplySmall(a, pow10(n % DIGITS));
+        int[] result = new int[m.length + n / DIGITS];
+        System.arraycopy(m, 0, result, n / DIGITS, m.length);
+        return result;
+    }
+
+    // a / 10^n, dropping the remainder
+    static int[] shiftRightDecimal(int[] a, int n) {
+        int limbs = n / DIGITS;
+        if (limbs >= a.length)
+            return EMPTY;
+        int[] result = new int[a.length - limbs];
+        System.arraycopy(a, limbs, result, 0, result.length);
+        return divideSmall(result, pow10(n % DIGITS));
+    }
+
+    static int hashCode(int[] a) {
+        int h = 0;
+        for (int i = a.length - 1; i >= 0; i--)
+            h = 31 * h + a[i];
+        return h;
+    }
+}
@@ -0,0 +1,457 @@
+package bignumbers;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.EventType;
+
+// Optional instrumentation of the arithmetic hot paths.
+// Switched on with -Dbignumbers.metrics=true. ENABLED is a static final flag,
+// so with the default of false the JIT folds every guard and the recording
+// code is removed from the compiled methods. When switched on it collects,
+// for add, subtract, multiply and divide: call counts, the algorithm tier that
+// did the work, histograms of operand sizes (in limbs) and latencies, and the
+// bytes the calling thread allocated. Multiplication records every step of its
+// recursion with the depth it ran at, Division the tier and time of every
+// division and the work of Knuth's inner loop.
+// The same data is emitted as the JFR events bignumbers.Operation and
+// bignumbers.AlgorithmStep (the latter disabled by default, it fires once per
+// recursion step). snapshot() returns the counters collected so far.
+// Sub-products computed by parallelMultiply run on pool threads, where the
+// recursion depth restarts at zero.
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("bignumbers.metrics");
+
+    public enum Operation {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE
+    }
+
+    // INLINE: both operands and the result fit in a long; LINEAR: a single pass over the limbs
+    public enum Tier {
+        INLINE, LINEAR,
+        SCHOOLBOOK, KARATSUBA, TOOM_COOK_3, UNBALANCED, NTT,
+        SHORT_DIVISION, KNUTH, BURNIKEL_ZIEGLER
+    }
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final Map<Operation, Recorder> OPERATIONS = new EnumMap<>(Operation.class);
+    private static final LongAdder[] STEPS = new LongAdder[Tier.values().length];
+    private static final AtomicLongArray DEPTHS = new AtomicLongArray(MAX_DEPTH);
+    private static final LongAdder KNUTH_QUOTIENT_LIMBS = new LongAdder();
+    private static final LongAdder KNUTH_CORRECTIONS = new LongAdder();
+    private static final LongAdder KNUTH_ADD_BACKS = new LongAdder();
+
+    static {
+        for (Operation op : Operation.values())
+            OPERATIONS.put(op, new Recorder());
+        for (int i = 0; i < STEPS.length; i++)
+            STEPS[i] = new LongAdder();
+    }
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+            return new State();
+        }
+    };
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    // not atomic with respect to operations that are running at the same time
+    public static void reset() {
+        for (Recorder r : OPERATIONS.values())
+            r.reset();
+        for (LongAdder steps : STEPS)
+            steps.reset();
+        for (int i = 0; i < MAX_DEPTH; i++)
+            DEPTHS.set(i, 0);
+        KNUTH_QUOTIENT_LIMBS.reset();
+        KNUTH_CORRECTIONS.reset();
+        KNUTH_ADD_BACKS.reset();
+    }
+
+    //// hooks, only called when ENABLED
+    // one operation per thread at a time; the returned probe is reused by the thread
+    static Probe begin(Operation op, BigNumber a, BigNumber b) {
+        Probe probe = STATE.get().probe;
+        probe.start(op, a, b);
+        return probe;
+    }
+
+    static void enterMultiply() {
+        STATE.get().depth++;
+    }
+
+    static void exitMultiply() {
+        State state = STATE.get();
+        int depth = --state.depth;
+        if (depth < MAX_DEPTH && state.steps[depth] != null) {
+            state.steps[depth].commit();
+            state.steps[depth] = null;
+        }
+    }
+
+    // a multiplication step of a x b limbs, inside enterMultiply/exitMultiply
+    static void multiplyStep(Tier tier, int aLength, int bLength) {
+        State state = STATE.get();
+        int depth = Math.min(state.depth - 1, MAX_DEPTH - 1);
+        STEPS[tier.ordinal()].increment();
+        DEPTHS.incrementAndGet(depth);
+        state.probe.tier(tier);
+        if (Jfr.STEP.isEnabled()) {
+            AlgorithmStepEvent event = new AlgorithmStepEvent();
+            event.begin();
+            event.tier = tier.name();
+            event.depth = depth;
+            event.leftLimbs = aLength;
+            event.rightLimbs = bLength;
+            state.steps[depth] = event;
+        }
+    }
+
+    // a division of a by b limbs; Division ends it with exitDivision when it returns
+    static void divisionStep(Tier tier, int aLength, int bLength) {
+        State state = STATE.get();
+        STEPS[tier.ordinal()].increment();
+        state.probe.tier(tier);
+        if (Jfr.STEP.isEnabled()) {
+            AlgorithmStepEvent event = new AlgorithmStepEvent();
+            event.begin();
+            event.tier = tier.name();
+            event.leftLimbs = aLength;
+            event.rightLimbs = bLength;
+            state.division = event;
+        }
+    }
+
+    static void exitDivision() {
+        State state = STATE.get();
+        if (state.division != null) {
+            state.division.commit();
+            state.division = null;
+        }
+    }
+
+    // one run of Algorithm D: quotient limbs computed, estimates lowered in D3, add-backs in D6
+    static void knuth(int quotientLimbs, int corrections, int addBacks) {
+        KNUTH_QUOTIENT_LIMBS.add(quotientLimbs);
+        KNUTH_CORRECTIONS.add(corrections);
+        KNUTH_ADD_BACKS.add(addBacks);
+    }
+
+    //// per thread state
+    private static final class State {
+        final Probe probe = new Probe();
+        final AlgorithmStepEvent[] steps = new AlgorithmStepEvent[MAX_DEPTH];
+        int depth;
+        // divisions do not nest, so one is open at a time
+        AlgorithmStepEvent division;
+    }
+
+    static final class Probe {
+        private Operation op;
+        private boolean inline;
+        private int limbs;
+        private Tier tier;
+        private long allocated;
+        private OperationEvent event;
+        private long start;
+
+        private void start(Operation op, BigNumber a, BigNumber b) {
+            this.op = op;
+            inline = a.isInline() && b.isInline();
+            limbs = Math.max(a.limbCount(), b.limbCount());
+            tier = null;
+            event = null;
+            if (Jfr.OPERATION.isEnabled()) {
+                event = new OperationEvent();
+                event.begin();
+            }
+            allocated = Allocation.current();
+            start = System.nanoTime();
+        }
+
+        // the first tier reported is the one at the top of the recursion
+        private void tier(Tier tier) {
+            if (this.tier == null)
+                this.tier = tier;
+        }
+
+        <T> T end(T result, BigNumber value) {
+            long nanos = System.nanoTime() - start;
+            long bytes = Allocation.current() - allocated;
+            Tier t = tier;
+            if (t == null)
+                t = inline && value.isInline() ? Tier.INLINE : Tier.LINEAR;
+            OPERATIONS.get(op).record(t, limbs, nanos, bytes);
+
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = op.name();
+                    event.tier = t.name();
+                    event.operandLimbs = limbs;
+                    event.resultLimbs = value.limbCount();
+                    event.allocatedBytes = bytes;
+                    event.commit();
+                }
+                event = null;
+            }
+            return result;
+        }
+
+        BigNumber end(BigNumber result) {
+            return end(result, result);
+        }
+    }
+
+    //// collectors
+    private static final class Recorder {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder[] tiers = new LongAdder[Tier.values().length];
+        final AtomicLongArray limbs = new AtomicLongArray(Histogram.BUCKETS);
+        final AtomicLongArray latency = new AtomicLongArray(Histogram.BUCKETS);
+
+        Recorder() {
+            for (int i = 0; i < tiers.length; i++)
+                tiers[i] = new LongAdder();
+        }
+
+        void record(Tier tier, int operandLimbs, long elapsed, long allocated) {
+            count.increment();
+            nanos.add(elapsed);
+            bytes.add(allocated);
+            tiers[tier.ordinal()].increment();
+            limbs.incrementAndGet(Histogram.bucket(operandLimbs));
+            latency.incrementAndGet(Histogram.bucket(elapsed));
+        }
+
+        void reset() {
+            count.reset();
+            nanos.reset();
+            bytes.reset();
+            for (LongAdder t : tiers)
+                t.reset();
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                limbs.set(i, 0);
+                latency.set(i, 0);
+            }
+        }
+    }
+
+    // looked up on first use, so nothing of JFR is loaded while metrics are off
+    private static final class Jfr {
+        static final EventType OPERATION = EventType.getEventType(OperationEvent.class);
+        static final EventType STEP = EventType.getEventType(AlgorithmStepEvent.class);
+    }
+
+    // bytes allocated by the current thread so far, 0 where the JVM cannot tell
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+                if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+                    return t;
+            }
+            return null;
+        }
+
+        static long current() {
+            return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    //// snapshot
+    // a copy of the counters at the time of the call
+    public static final class Snapshot {
+        private final Map<Operation, OperationStats> operations = new EnumMap<>(Operation.class);
+        private final long[] steps = new long[Tier.values().length];
+        private final long[] depths = new long[MAX_DEPTH];
+        private final long knuthQuotientLimbs = KNUTH_QUOTIENT_LIMBS.sum();
+        private final long knuthCorrections = KNUTH_CORRECTIONS.sum();
+        private final long knuthAddBacks = KNUTH_ADD_BACKS.sum();
+
+        private Snapshot() {
+            for (Map.Entry<Operation, Recorder> e : OPERATIONS.entrySet())
+                operations.put(e.getKey(), new OperationStats(e.getValue()));
+            for (int i = 0; i < steps.length; i++)
+                steps[i] = STEPS[i].sum();
+            for (int i = 0; i < MAX_DEPTH; i++)
+                depths[i] = DEPTHS.get(i);
+        }
+
+        public OperationStats operation(Operation op) {
+            return operations.get(op);
+        }
+
+        // recursion steps of all multiplications and divisions, including nested ones
+        public long steps(Tier tier) {
+            return steps[tier.ordinal()];
+        }
+
+        // multiplication steps per recursion depth, the top level at index 0
+        public long[] multiplyDepths() {
+            return depths.clone();
+        }
+
+        public int maxMultiplyDepth() {
+            for (int i = MAX_DEPTH - 1; i >= 0; i--) {
+                if (depths[i] != 0)
+                    return i;
+            }
+            return -1;
+        }
+
+        public long knuthQuotientLimbs() {
+            return knuthQuotientLimbs;
+        }
+
+        public long knuthCorrections() {
+            return knuthCorrections;
+        }
+
+        public long knuthAddBacks() {
+            return knuthAddBacks;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<Operation, OperationStats> e : operations.entrySet())
+                sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+            sb.append("steps:");
+            for (Tier tier : Tier.values()) {
+                if (steps[tier.ordinal()] != 0)
+                    sb.append(' ').append(tier).append('=').append(steps[tier.ordinal()]);
+            }
+            sb.append("\nmultiply depth: max ").append(maxMultiplyDepth());
+            sb.append("\nknuth: quotient limbs ").append(knuthQuotientLimbs)
+                    .append(", corrections ").append(knuthCorrections)
+                    .append(", add-backs ").append(knuthAddBacks);
+            return sb.toString();
+        }
+    }
+
+    public static final class OperationStats {
+        private final long count;
+        private final long nanos;
+        private final long bytes;
+        private final long[] tiers = new long[Tier.values().length];
+        private final Histogram operandLimbs;
+        private final Histogram latencyNanos;
+
+        private OperationStats(Recorder r) {
+            count = r.count.sum();
+            nanos = r.nanos.sum();
+            bytes = r.bytes.sum();
+            for (int i = 0; i < tiers.length; i++)
+                tiers[i] = r.tiers[i].sum();
+            operandLimbs = new Histogram(r.limbs);
+            latencyNanos = new Histogram(r.latency);
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long totalNanos() {
+            return nanos;
+        }
+
+        public long allocatedBytes() {
+            return bytes;
+        }
+
+        // calls whose top level ran in the given tier
+        public long count(Tier tier) {
+            return tiers[tier.ordinal()];
+        }
+
+        // limb count of the longer operand
+        public Histogram operandLimbs() {
+            return operandLimbs;
+        }
+
+        public Histogram latencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(count).append(" calls, ").append(nanos / 1000000).append(" ms, ")
+                    .append(bytes).append(" bytes, p50 ").append(latencyNanos.percentile(50))
+                    .append(" ns, p99 ").append(latencyNanos.percentile(99)).append(" ns, tiers");
+            for (Tier tier : Tier.values()) {
+                if (tiers[tier.ordinal()] != 0)
+                    sb.append(' ').append(tier).append('=').append(tiers[tier.ordinal()]);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Power of two buckets: bucket 0 holds 0, bucket i holds [2^(i-1), 2^i).
+    public static final class Histogram {
+        static final int BUCKETS = 65;
+
+        private final long[] counts = new long[BUCKETS];
+        private final long total;
+
+        private Histogram(AtomicLongArray source) {
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = source.get(i);
+                sum += counts[i];
+            }
+            total = sum;
+        }
+
+        static int bucket(long value) {
+            return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+        }
+
+        public long count() {
+            return total;
+        }
+
+        public long count(int bucket) {
+            return counts[bucket];
+        }
+
+        // smallest value of a bucket
+        public static long lowerBound(int bucket) {
+            return bucket == 0 ? 0 : 1L << (bucket - 1);
+        }
+
+        // upper bound of the bucket holding the p-th percentile, 0 when empty
+        public long percentile(double p) {
+            long rank = (long) Math.ceil(total * p / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0)
+                    return i == 0 ? 0 : i == 64 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+            return 0;
+        }
+    }
+}
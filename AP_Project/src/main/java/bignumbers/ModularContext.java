@@ -0,0 +1,411 @@
+package bignumbers;
+
+import java.util.Arrays;
+
+// Arithmetic modulo a fixed positive modulus.
+// For a modulus coprime to 10 (any odd modulus not divisible by 5, so every
+// RSA modulus) values are kept in Montgomery form with R = BASE^n, n the
+// limb count of the modulus, and a reduction is a single pass over the limbs
+// instead of a division. Other moduli fall back to multiplying and dividing,
+// with the division by the modulus done by a Divisor.
+// Building a context costs two divisions; it is immutable afterwards and can
+// be shared between threads, so keep it around when many operations use the
+// same modulus.
+public final class ModularContext {
+
+    // bit lengths of the exponent up to which a window of index + 1 bits is used
+    private static final int[] WINDOW_LIMITS = {7, 25, 81, 241, 673, 1793, Integer.MAX_VALUE};
+    private static final int CONSTANT_TIME_WINDOW = 5;
+
+    // an exponent is split into words of WORD_BITS bits; BASE < 2^WORD_BITS
+    private static final int WORD_BITS = 30;
+
+    private final BigNumber modulus;
+    private final int[] m;
+    private final int n;
+    private final boolean montgomery;
+
+    // -m^-1 mod BASE
+    private final long mInv;
+    // R^2 mod m, and 1 in the internal form (R mod m for Montgomery), n limbs each
+    private final int[] rSquared;
+    private final int[] one;
+    // Barrett reduction for the moduli that are not coprime to 10
+    private final Divisor divisor;
+
+    public ModularContext(BigNumber modulus) {
+        if (modulus.signum() <= 0)
+            throw new ArithmeticException("Modulus not positive");
+
+        this.modulus = modulus;
+        m = modulus.magnitude();
+        n = m.length;
+        montgomery = m[0] % 2 != 0 && m[0] % 5 != 0;
+
+        if (montgomery) {
+            divisor = null;
+            mInv = Limbs.BASE - inverseModBase(m[0]);
+            int[] r = new int[n + 1];
+            r[n] = 1;
+            one = pad(remainder(r));
+            int[] r2 = new int[2 * n + 1];
+            r2[2 * n] = 1;
+            rSquared = pad(remainder(r2));
+        } else {
+            mInv = 0;
+            rSquared = null;
+            divisor = new Divisor(modulus);
+            one = pad(remainder(new int[] {1}));
+        }
+    }
+
+    public BigNumber modulus() {
+        return modulus;
+    }
+
+    //// public operations, all results in [0, m)
+    public BigNumber reduce(BigNumber a) {
+        return toBigNumber(reduce(a, false));
+    }
+
+    public BigNumber multiply(BigNumber a, BigNumber b) {
+        if (montgomery)
+            return toBigNumber(montgomeryMultiply(toInternal(a), reduce(b, true)));
+        return toBigNumber(multiply(reduce(a, false), reduce(b, false)));
+    }
+
+    // a^e mod m with a sliding window over the bits of e; a negative e uses the inverse of a
+    public BigNumber pow(BigNumber a, BigNumber exponent) {
+        if (exponent.signum() < 0)
+            return pow(inverse(a), exponent.negate());
+
+        int[] e = toBinary(exponent.magnitude(), 0);
+        int bitLength = bitLength(e);
+        if (bitLength == 0)
+            return toBigNumber(fromInternal(one));
+
+        int k = 1;
+        while (bitLength > WINDOW_LIMITS[k - 1])
+            k++;
+
+        // odd powers a^1, a^3, ..., a^(2^k - 1)
+        int[] x = toInternal(a);
+        int[][] table = new int[1 << (k - 1)][];
+        table[0] = x;
+        if (k > 1) {
+            int[] x2 = multiply(x, x);
+            for (int i = 1; i < table.length; i++)
+                table[i] = multiply(table[i - 1], x2);
+        }
+
+        // the top bit is set, so the first window initializes the result
+        int[] result = null;
+        int i = bitLength - 1;
+        while (i >= 0) {
+            if (bit(e, i) == 0) {
+                result = multiply(result, result);
+                i--;
+                continue;
+            }
+
+            // longest window of at most k bits that starts at bit i and ends with a one
+            int low = Math.max(i - k + 1, 0);
+            while (bit(e, low) == 0)
+                low++;
+            int window = 0;
+            for (int j = i; j >= low; j--)
+                window = window << 1 | bit(e, j);
+
+            if (result == null) {
+                result = table[window >>> 1];
+            } else {
+                for (int j = i; j >= low; j--)
+                    result = multiply(result, result);
+                result = multiply(result, table[window >>> 1]);
+            }
+            i = low - 1;
+        }
+        return toBigNumber(fromInternal(result));
+    }
+
+    // a^e mod m for secret exponents. Every window does the same squarings and one
+    // multiplication, table entries are picked by scanning the whole table, the
+    // Montgomery reduction ends with a masked instead of a conditional subtraction
+    // and the number of windows only depends on the limb counts of e and m.
+    // Moduli that are not coprime to 10 still follow the schedule, but their
+    // reduction is a division and does not run in constant time.
+    public BigNumber powConstantTime(BigNumber a, BigNumber exponent) {
+        if (exponent.signum() < 0)
+            throw new ArithmeticException("Negative exponent");
+
+        int[] e = toBinary(exponent.magnitude(), n);
+        int k = CONSTANT_TIME_WINDOW;
+        int windows = (e.length * WORD_BITS + k - 1) / k;
+
+        // a^0 .. a^(2^k - 1)
+        int[][] table = new int[1 << k][];
+        table[0] = one;
+        table[1] = toInternal(a);
+        for (int i = 2; i < table.length; i++)
+            table[i] = multiply(table[i - 1], table[1]);
+
+        int[] result = select(table, window(e, windows - 1, k));
+        for (int w = windows - 2; w >= 0; w--) {
+            for (int j = 0; j < k; j++)
+                result = multiply(result, result);
+            result = multiply(result, select(table, window(e, w, k)));
+        }
+        return toBigNumber(fromInternal(result));
+    }
+
+    // extended Lehmer gcd, see Gcd
+    public BigNumber inverse(BigNumber a) {
+        return Gcd.modInverse(reduce(a), modulus);
+    }
+
+    //// conversions; internal values always have n limbs
+    // a mod m, padded to n limbs unless the result is handed out
+    private int[] reduce(BigNumber a, boolean internal) {
+        int[] r = remainder(a.magnitude());
+        if (a.signum() < 0 && r.length != 0)
+            r = Limbs.subtract(m, r);
+        return internal ? pad(r) : r;
+    }
+
+    private int[] toInternal(BigNumber a) {
+        int[] r = reduce(a, true);
+        return montgomery ? montgomeryMultiply(r, rSquared) : r;
+    }
+
+    private int[] fromInternal(int[] x) {
+        if (!montgomery)
+            return x;
+        int[] unit = new int[n];
+        unit[0] = 1;
+        return montgomeryMultiply(x, unit);
+    }
+
+    private static BigNumber toBigNumber(int[] mag) {
+        mag = Limbs.stripLeadingZeros(mag);
+        return mag.length == 0 ? BigNumber.ZERO : BigNumber.fromMagnitude(mag, false);
+    }
+
+    // normalized a mod m
+    private int[] remainder(int[] a) {
+        if (divisor != null)
+            return divisor.divideAndRemainder(Limbs.stripLeadingZeros(a))[1];
+        return Division.divideAndRemainder(Limbs.stripLeadingZeros(a), m)[1];
+    }
+
+    private int[] pad(int[] a) {
+        return Arrays.copyOf(a, n);
+    }
+
+    private int[] multiply(int[] a, int[] b) {
+        if (montgomery)
+            return montgomeryMultiply(a, b);
+        return pad(remainder(Multiplication.multiply(a, b)));
+    }
+
+    //// Montgomery multiplication
+    // a * b / R mod m for a, b < m, product and reduction interleaved column by column
+    // (finely integrated product scanning). Like the schoolbook multiplication, a column
+    // sums up to eight limb products in a long before the carry is split off. The
+    // quotient limbs u[k] are still zero when column k is summed, so the loop needs no
+    // special case for them.
+    private int[] montgomeryMultiply(int[] a, int[] b) {
+        final long base = Limbs.BASE;
+        int[] u = new int[n];
+        int[] t = new int[n + 1];
+        long carry = 0;
+        for (int k = 0; k < 2 * n - 1; k++) {
+            int i = Math.max(0, k - n + 1);
+            int last = Math.min(k, n - 1);
+            long acc = carry;
+            long high = 0;
+            while (i <= last) {
+                int end = Math.min(i + 4, last + 1);
+                for (; i < end; i++)
+                    acc += (long) a[i] * b[k - i] + (long) u[i] * m[k - i];
+                high += acc / base;
+                acc %= base;
+            }
+
+            if (k < n) {
+                // choose u[k] so that the column becomes divisible by BASE
+                long uk = acc * mInv % base;
+                u[k] = (int) uk;
+                carry = high + (acc + uk * m[0]) / base;
+            } else {
+                t[k - n] = (int) acc;
+                carry = high;
+            }
+        }
+        t[n - 1] = (int) (carry % base);
+        t[n] = (int) (carry / base);
+
+        // t < 2m: subtract m and keep the difference unless it borrowed, without branching
+        int[] r = new int[n];
+        int borrow = 0;
+        for (int j = 0; j < n; j++) {
+            int d = t[j] - m[j] - borrow;
+            borrow = d >>> 31;
+            r[j] = d + (Limbs.BASE & -borrow);
+        }
+        int keep = -((t[n] - borrow) >>> 31);
+        for (int j = 0; j < n; j++)
+            r[j] = (t[j] & keep) | (r[j] & ~keep);
+        return r;
+    }
+
+    //// internal form (used by Primes)
+    // Montgomery form is linear, so sums, differences and halves can be taken on it
+    // directly; a sequence of operations converts in and out only once.
+    int[] internal(BigNumber a) {
+        return toInternal(a);
+    }
+
+    BigNumber external(int[] x) {
+        return toBigNumber(fromInternal(x));
+    }
+
+    int[] internalMultiply(int[] a, int[] b) {
+        return multiply(a, b);
+    }
+
+    int[] internalAdd(int[] a, int[] b) {
+        int[] r = new int[n];
+        int carry = 0;
+        for (int j = 0; j < n; j++) {
+            int s = a[j] + b[j] + carry;
+            carry = s >= Limbs.BASE ? 1 : 0;
+            r[j] = s - (Limbs.BASE & -carry);
+        }
+        if (carry != 0 || Limbs.compare(r, 0, n, m, 0, n) >= 0)
+            subtractModulus(r);
+        return r;
+    }
+
+    int[] internalSubtract(int[] a, int[] b) {
+        int[] r = new int[n];
+        int borrow = 0;
+        for (int j = 0; j < n; j++) {
+            int d = a[j] - b[j] - borrow;
+            borrow = d >>> 31;
+            r[j] = d + (Limbs.BASE & -borrow);
+        }
+        if (borrow != 0) {
+            int carry = 0;
+            for (int j = 0; j < n; j++) {
+                int s = r[j] + m[j] + carry;
+                carry = s >= Limbs.BASE ? 1 : 0;
+                r[j] = s - (Limbs.BASE & -carry);
+            }
+        }
+        return r;
+    }
+
+    // a / 2 mod m for odd m: a or a + m is even, and half of it is below m again
+    int[] internalHalf(int[] a) {
+        int[] t = a;
+        int top = 0;
+        if ((a[0] & 1) != 0) {
+            t = new int[n];
+            for (int j = 0; j < n; j++) {
+                int s = a[j] + m[j] + top;
+                top = s >= Limbs.BASE ? 1 : 0;
+                t[j] = s - (Limbs.BASE & -top);
+            }
+        }
+        int[] r = new int[n];
+        long rem = top;
+        for (int j = n - 1; j >= 0; j--) {
+            long x = rem * Limbs.BASE + t[j];
+            r[j] = (int) (x >>> 1);
+            rem = x & 1;
+        }
+        return r;
+    }
+
+    static boolean isZero(int[] x) {
+        for (int limb : x) {
+            if (limb != 0)
+                return false;
+        }
+        return true;
+    }
+
+    // r - m in place for m <= r < 2m
+    private void subtractModulus(int[] r) {
+        int borrow = 0;
+        for (int j = 0; j < n; j++) {
+            int d = r[j] - m[j] - borrow;
+            borrow = d >>> 31;
+            r[j] = d + (Limbs.BASE & -borrow);
+        }
+    }
+
+    // Newton iteration x = x * (2 - a * x), doubling the number of correct digits each step
+    private static long inverseModBase(int a) {
+        final long base = Limbs.BASE;
+        // inverses of 1, 3, 7 and 9 modulo 10
+        long x = new int[] {0, 1, 0, 7, 0, 0, 0, 3, 0, 9}[a % 10];
+        for (int i = 0; i < 4; i++)
+            x = x * ((2 + base - a * x % base) % base) % base;
+        return x;
+    }
+
+    //// exponent bits (also used by Primes)
+    // little-endian words of WORD_BITS bits, at least minWords of them
+    static int[] toBinary(int[] mag, int minWords) {
+        int[] a = mag.clone();
+        int len = a.length;
+        int[] words = new int[Math.max(len, minWords)];
+        int count = 0;
+        while (len > 0) {
+            long rem = 0;
+            for (int i = len - 1; i >= 0; i--) {
+                long t = rem * Limbs.BASE + a[i];
+                a[i] = (int) (t >>> WORD_BITS);
+                rem = t & ((1 << WORD_BITS) - 1);
+            }
+            words[count++] = (int) rem;
+            while (len > 0 && a[len - 1] == 0)
+                len--;
+        }
+        return words;
+    }
+
+    static int bitLength(int[] words) {
+        for (int i = words.length - 1; i >= 0; i--) {
+            if (words[i] != 0)
+                return i * WORD_BITS + 32 - Integer.numberOfLeadingZeros(words[i]);
+        }
+        return 0;
+    }
+
+    // bits past the last word read as zero
+    static int bit(int[] words, int i) {
+        int word = i / WORD_BITS;
+        return word < words.length ? words[word] >>> (i % WORD_BITS) & 1 : 0;
+    }
+
+    private static int window(int[] words, int w, int k) {
+        int value = 0;
+        for (int j = k - 1; j >= 0; j--)
+            value = value << 1 | bit(words, w * k + j);
+        return value;
+    }
+
+    // table[index], reading every entry
+    private static int[] select(int[][] table, int index) {
+        int[] r = new int[table[0].length];
+        for (int i = 0; i < table.length; i++) {
+            int mask = ((i ^ index) - 1) >> 31;
+            int[] entry = table[i];
+            for (int j = 0; j < r.length; j++)
+                r[j] |= entry[j] & mask;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,378 @@
+package bignumbers;
+
+// Multiplication engine working directly on limb arrays.
+// Operands below KARATSUBA_THRESHOLD limbs use the schoolbook method,
+// then Karatsuba, and Toom-Cook-3 from TOOM_COOK_THRESHOLD limbs upwards.
+// Operands past NttMultiplication.THRESHOLD go through the transform tier;
+// products too long for a single transform are split by Toom-Cook-3 first.
+// Both crossover points can be overridden with the system properties
+// bignumbers.multiply.karatsubaThreshold and bignumbers.multiply.toomCookThreshold.
+// Squares have their own kernels: the schoolbook square computes every cross
+// product once and doubles it, Karatsuba and Toom-Cook-3 evaluate the single
+// operand once and recurse into squares, and the transform tier transforms
+// it once. Their crossover points (bignumbers.multiply.karatsubaSquareThreshold
+// and bignumbers.multiply.toomCookSquareThreshold) are higher, since the
+// schoolbook square does half the work of a product.
+final class Multiplication {
+
+    // measured on x86-64 (JDK 17); one limb holds 9 decimal digits
+    static final int KARATSUBA_THRESHOLD =
+            Integer.getInteger("bignumbers.multiply.karatsubaThreshold", 40);
+    static final int TOOM_COOK_THRESHOLD =
+            Integer.getInteger("bignumbers.multiply.toomCookThreshold", 240);
+    static final int KARATSUBA_SQUARE_THRESHOLD =
+            Integer.getInteger("bignumbers.multiply.karatsubaSquareThreshold", 160);
+    static final int TOOM_COOK_SQUARE_THRESHOLD =
+            Integer.getInteger("bignumbers.multiply.toomCookSquareThreshold", 480);
+
+    private Multiplication() {
+    }
+
+    static int[] multiply(int[] a, int[] b) {
+        return multiply(LimbView.of(a), LimbView.of(b));
+    }
+
+    static int[] multiply(LimbView a, LimbView b) {
+        if (!Metrics.ENABLED)
+            return dispatch(a, b);
+        Metrics.enterMultiply();
+        try {
+            return dispatch(a, b);
+        } finally {
+            Metrics.exitMultiply();
+        }
+    }
+
+    private static int[] dispatch(LimbView a, LimbView b) {
+        if (a.length < b.length) {
+            LimbView tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (b.isZero())
+            return Limbs.EMPTY;
+
+        if (b.length < KARATSUBA_THRESHOLD) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.SCHOOLBOOK, a.length, b.length);
+            return Limbs.stripLeadingZeros(schoolbook(a, b));
+        }
+        if (b.length >= NttMultiplication.THRESHOLD && NttMultiplication.supports(a.length, b.length)) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.NTT, a.length, b.length);
+            return NttMultiplication.multiply(a, b);
+        }
+        if (2 * b.length <= a.length) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.UNBALANCED, a.length, b.length);
+            return unbalanced(a, b);
+        }
+        if (b.length < TOOM_COOK_THRESHOLD) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.KARATSUBA, a.length, b.length);
+            return karatsuba(a, b);
+        }
+        if (Metrics.ENABLED)
+            Metrics.multiplyStep(Metrics.Tier.TOOM_COOK_3, a.length, b.length);
+        return toomCook3(a, b);
+    }
+
+    static int[] square(int[] a) {
+        return square(LimbView.of(a));
+    }
+
+    static int[] square(LimbView a) {
+        if (!Metrics.ENABLED)
+            return dispatchSquare(a);
+        Metrics.enterMultiply();
+        try {
+            return dispatchSquare(a);
+        } finally {
+            Metrics.exitMultiply();
+        }
+    }
+
+    private static int[] dispatchSquare(LimbView a) {
+        if (a.isZero())
+            return Limbs.EMPTY;
+
+        if (a.length < KARATSUBA_SQUARE_THRESHOLD) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.SCHOOLBOOK, a.length, a.length);
+            return Limbs.stripLeadingZeros(schoolbookSquare(a));
+        }
+        if (a.length >= NttMultiplication.THRESHOLD && NttMultiplication.supports(a.length, a.length)) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.NTT, a.length, a.length);
+            return NttMultiplication.multiply(a, a);
+        }
+        if (a.length < TOOM_COOK_SQUARE_THRESHOLD) {
+            if (Metrics.ENABLED)
+                Metrics.multiplyStep(Metrics.Tier.KARATSUBA, a.length, a.length);
+            return karatsubaSquare(a);
+        }
+        if (Metrics.ENABLED)
+            Metrics.multiplyStep(Metrics.Tier.TOOM_COOK_3, a.length, a.length);
+        return toomCook3Square(a);
+    }
+
+    //// schoolbook
+    // column by column; a limb product is below 10^18, so eight of them can be
+    // summed in a long before the carry has to be split off
+    static int[] schoolbook(LimbView a, LimbView b) {
+        int[] r = new int[a.length + b.length];
+        schoolbook(a, b, r);
+        return r;
+    }
+
+    // into r[0, a.length + b.length); limbs of r above that are left alone
+    static void schoolbook(LimbView a, LimbView b, int[] r) {
+        int[] x = a.limbs;
+        int[] y = b.limbs;
+        int xOff = a.offset;
+        int yOff = b.offset;
+        int xLen = a.length;
+        int yLen = b.length;
+
+        long carry = 0;
+        for (int k = 0; k < xLen + yLen - 1; k++) {
+            int i = Math.max(0, k - yLen + 1);
+            int last = Math.min(k, xLen - 1);
+            long acc = carry;
+            long high = 0;
+            while (i <= last) {
+                int end = Math.min(i + 8, last + 1);
+                for (; i < end; i++)
+                    acc += (long) x[xOff + i] * y[yOff + k - i];
+                high += acc / Limbs.BASE;
+                acc %= Limbs.BASE;
+            }
+            r[k] = (int) acc;
+            carry = high;
+        }
+        r[xLen + yLen - 1] = (int) carry;
+    }
+
+    // x[i] * x[j] for i < j is summed once per column and doubled, then the diagonal
+    // square is added; four doubled products still fit in a long next to the carry
+    static int[] schoolbookSquare(LimbView a) {
+        int[] x = a.limbs;
+        int off = a.offset;
+        int len = a.length;
+
+        int[] r = new int[2 * len];
+        long carry = 0;
+        for (int k = 0; k < 2 * len - 1; k++) {
+            int i = Math.max(0, k - len + 1);
+            int last = (k - 1) >> 1;
+            long acc = carry;
+            long high = 0;
+            if ((k & 1) == 0) {
+                long d = x[off + k / 2];
+                acc += d * d;
+                high += acc / Limbs.BASE;
+                acc %= Limbs.BASE;
+            }
+            while (i <= last) {
+                int end = Math.min(i + 4, last + 1);
+                long sum = 0;
+                for (; i < end; i++)
+                    sum += (long) x[off + i] * x[off + k - i];
+                acc += 2 * sum;
+                high += acc / Limbs.BASE;
+                acc %= Limbs.BASE;
+            }
+            r[k] = (int) acc;
+            carry = high;
+        }
+        r[2 * len - 1] = (int) carry;
+        return r;
+    }
+
+    // computes the independent sub-products of one splitting step,
+    // either one after another or in parallel (see ParallelMultiplication)
+    interface Products {
+        int[][] multiply(LimbView[] xs, LimbView[] ys);
+    }
+
+    static final Products SEQUENTIAL = new Products() {
+        @Override
+        public int[][] multiply(LimbView[] xs, LimbView[] ys) {
+            int[][] products = new int[xs.length][];
+            for (int i = 0; i < xs.length; i++)
+                products[i] = Multiplication.multiply(xs[i], ys[i]);
+            return products;
+        }
+    };
+
+    //// unbalanced operands
+    // a is at least twice as long as b: multiply b by b-sized chunks of a
+    private static int[] unbalanced(LimbView a, LimbView b) {
+        return unbalanced(a, b, SEQUENTIAL);
+    }
+
+    static int[] unbalanced(LimbView a, LimbView b, Products products) {
+        int chunk = b.length;
+        int count = (a.length + chunk - 1) / chunk;
+        LimbView[] xs = new LimbView[count];
+        LimbView[] ys = new LimbView[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = a.slice(i * chunk, (i + 1) * chunk);
+            ys[i] = b;
+        }
+
+        int[][] p = products.multiply(xs, ys);
+        int[] r = new int[a.length + b.length];
+        for (int i = 0; i < count; i++)
+            Limbs.addInto(r, i * chunk, p[i]);
+        return Limbs.stripLeadingZeros(r);
+    }
+
+    //// Karatsuba
+    private static int[] karatsuba(LimbView x, LimbView y) {
+        return karatsuba(x, y, SEQUENTIAL);
+    }
+
+    // x*y = B^(2m)*(ac == z2) + B^m*((ad + bc) == z1) + (bd == z0)
+    static int[] karatsuba(LimbView x, LimbView y, Products products) {
+        int m = (x.length + 1) / 2;
+
+        LimbView a = x.high(m);
+        LimbView b = x.low(m);
+        LimbView c = y.high(m);
+        LimbView d = y.low(m);
+
+        int[][] p = products.multiply(
+                new LimbView[] {a, b, LimbView.of(Limbs.add(a, b))},
+                new LimbView[] {c, d, LimbView.of(Limbs.add(c, d))});
+        return karatsubaCombine(p[0], p[1], p[2], m, x.length + y.length);
+    }
+
+    // x^2 = B^(2m)*a^2 + B^m*((a + b)^2 - a^2 - b^2) + b^2
+    private static int[] karatsubaSquare(LimbView x) {
+        int m = (x.length + 1) / 2;
+        LimbView a = x.high(m);
+        LimbView b = x.low(m);
+        return karatsubaCombine(square(a), square(b), square(LimbView.of(Limbs.add(a, b))), m, 2 * x.length);
+    }
+
+    private static int[] karatsubaCombine(int[] z2, int[] z0, int[] sum, int m, int length) {
+        int[] z1 = Limbs.subtract(sum, Limbs.add(z2, z0));
+
+        int[] r = new int[length];
+        System.arraycopy(z0, 0, r, 0, z0.length);
+        System.arraycopy(z2, 0, r, 2 * m, z2.length);
+        Limbs.addInto(r, m, z1);
+        return Limbs.stripLeadingZeros(r);
+    }
+
+    //// Toom-Cook-3
+    private static int[] toomCook3(LimbView x, LimbView y) {
+        return toomCook3(x, y, SEQUENTIAL);
+    }
+
+    // evaluation at 0, 1, -1, 2 and infinity, interpolation sequence by Bodrato
+    static int[] toomCook3(LimbView x, LimbView y, Products products) {
+        int k = (x.length + 2) / 3;
+        LimbView[] xs = new LimbView[5];
+        LimbView[] ys = new LimbView[5];
+        boolean xm1Negative = toomEvaluate(x, k, xs);
+        boolean ym1Negative = toomEvaluate(y, k, ys);
+
+        int[][] p = products.multiply(xs, ys);
+        return toomInterpolate(p, xm1Negative != ym1Negative, k, x.length + y.length);
+    }
+
+    // the value at -1 is squared, so its sign does not matter
+    private static int[] toomCook3Square(LimbView x) {
+        int k = (x.length + 2) / 3;
+        LimbView[] xs = new LimbView[5];
+        toomEvaluate(x, k, xs);
+
+        int[][] p = new int[5][];
+        for (int i = 0; i < 5; i++)
+            p[i] = square(xs[i]);
+        return toomInterpolate(p, false, k, 2 * x.length);
+    }
+
+    // stores x at 0, infinity, -1 (its magnitude), 1 and 2 in points and
+    // returns whether the value at -1 is negative
+    private static boolean toomEvaluate(LimbView x, int k, LimbView[] points) {
+        LimbView a0 = x.low(k);
+        LimbView a1 = x.slice(k, 2 * k);
+        LimbView a2 = x.high(2 * k);
+
+        int[] da1 = Limbs.add(a2, a0);
+        Signed am1 = Signed.difference(da1, a1.toArray());
+        da1 = Limbs.add(da1, a1.toArray());
+
+        // a0 + 2*a1 + 4*a2 is never negative
+        int[] da2 = Limbs.subtract(Limbs.multiplySmall(Limbs.add(da1, a2.toArray()), 2), a0.toArray());
+
+        points[0] = a0;
+        points[1] = a2;
+        points[2] = LimbView.of(am1.mag);
+        points[3] = LimbView.of(da1);
+        points[4] = LimbView.of(da2);
+        return am1.negative;
+    }
+
+    private static int[] toomInterpolate(int[][] p, boolean vm1Negative, int k, int length) {
+        int[] v0 = p[0];
+        int[] vInf = p[1];
+        Signed vm1 = new Signed(p[2], vm1Negative);
+        int[] v1 = p[3];
+        int[] v2 = p[4];
+
+        Signed t2 = Signed.of(v2).subtract(vm1).divideExact(3);
+        Signed tm1 = Signed.of(v1).subtract(vm1).divideExact(2);
+        Signed t1 = Signed.of(v1).subtract(Signed.of(v0));
+        t2 = t2.subtract(t1).divideExact(2);
+        t1 = t1.subtract(tm1).subtract(Signed.of(vInf));
+        t2 = t2.subtract(Signed.of(Limbs.multiplySmall(vInf, 2)));
+        tm1 = tm1.subtract(t2);
+
+        // the interpolated coefficients of the product are all non-negative
+        int[] r = new int[length + 1];
+        System.arraycopy(v0, 0, r, 0, v0.length);
+        Limbs.addInto(r, k, tm1.mag);
+        Limbs.addInto(r, 2 * k, t1.mag);
+        Limbs.addInto(r, 3 * k, t2.mag);
+        Limbs.addInto(r, 4 * k, vInf);
+        return Limbs.stripLeadingZeros(r);
+    }
+
+    // signed magnitude used by the Toom-Cook interpolation
+    private static final class Signed {
+        final int[] mag;
+        final boolean negative;
+
+        private Signed(int[] mag, boolean negative) {
+            this.mag = mag;
+            this.negative = negative && mag.length != 0;
+        }
+
+        static Signed of(int[] mag) {
+            return new Signed(mag, false);
+        }
+
+        static Signed difference(int[] a, int[] b) {
+            int cmp = Limbs.compare(a, b);
+            if (cmp >= 0)
+                return new Signed(Limbs.subtract(a, b), false);
+            return new Signed(Limbs.subtract(b, a), true);
+        }
+
+        Signed subtract(Signed val) {
+            if (negative != val.negative)
+                return new Signed(Limbs.add(mag, val.mag), negative);
+
+            Signed d = difference(mag, val.mag);
+            return negative ? new Signed(d.mag, !d.negative) : d;
+        }
+
+        Signed divideExact(int d) {
+            return new Signed(Limbs.divideSmall(mag, d), negative);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package bignumbers;
+
+import java.util.Arrays;
+
+// Mutable accumulator for sums, series and digit-by-digit construction.
+// Every operation updates the limb buffer in place; the buffer grows by
+// doubling, so a summation loop stops allocating once it has reached its
+// final size. Not thread-safe.
+public final class MutableBigNumber {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // base 10^9 limbs, least significant first; limbs[length..] are always zero
+    private int[] limbs;
+    private int length;
+    private boolean negative;
+
+    // reused for the magnitude of long operands and for products
+    private final int[] small = new int[3];
+    private int[] work = Limbs.EMPTY;
+
+    //// Constructors
+    public MutableBigNumber() {
+        limbs = new int[DEFAULT_CAPACITY];
+    }
+
+    public MutableBigNumber(long val) {
+        this();
+        set(val);
+    }
+
+    public MutableBigNumber(BigNumber val) {
+        this();
+        set(val);
+    }
+
+    //// set & reset
+    public MutableBigNumber set(BigNumber val) {
+        int[] mag = val.magnitude();
+        clear(0);
+        ensureCapacity(mag.length);
+        System.arraycopy(mag, 0, limbs, 0, mag.length);
+        length = mag.length;
+        negative = val.signum() < 0;
+        return this;
+    }
+
+    public MutableBigNumber set(long val) {
+        clear(0);
+        addMagnitude(small, 0, toSmall(val), val < 0);
+        return this;
+    }
+
+    public MutableBigNumber setZero() {
+        clear(0);
+        negative = false;
+        return this;
+    }
+
+    //// in-place add & subtract
+    public MutableBigNumber add(BigNumber val) {
+        int[] mag = val.magnitude();
+        addMagnitude(mag, 0, mag.length, val.signum() < 0);
+        return this;
+    }
+
+    public MutableBigNumber add(long val) {
+        addMagnitude(small, 0, toSmall(val), val < 0);
+        return this;
+    }
+
+    public MutableBigNumber subtract(BigNumber val) {
+        int[] mag = val.magnitude();
+        addMagnitude(mag, 0, mag.length, val.signum() > 0);
+        return this;
+    }
+
+    public MutableBigNumber subtract(long val) {
+        addMagnitude(small, 0, toSmall(val), val > 0);
+        return this;
+    }
+
+    public MutableBigNumber add(MutableBigNumber val) {
+        addMagnitude(val.limbs, 0, val.length, val.negative);
+        return this;
+    }
+
+    //// in-place multiplication
+    public MutableBigNumber multiply(long m) {
+        if (m == 0 || length == 0)
+            return setZero();
+
+        boolean productNegative = negative != (m < 0);
+        int mLen = toSmall(m);
+        if (mLen == 1)
+            multiplyBySingleLimb(small[0]);
+        else
+            multiplyBySmall(small, mLen);
+        negative = productNegative;
+        return this;
+    }
+
+    // this = this * m + addend, one Horner step
+    public MutableBigNumber multiplyAdd(long m, long addend) {
+        multiply(m);
+        return add(addend);
+    }
+
+    // this += val * m
+    public MutableBigNumber addProduct(BigNumber val, long m) {
+        int[] mag = val.magnitude();
+        if (m == 0 || mag.length == 0)
+            return this;
+
+        int mLen = toSmall(m);
+        int productLength = mag.length + mLen;
+        if (work.length < productLength)
+            work = new int[Math.max(productLength, 2 * work.length)];
+        Arrays.fill(work, 0, productLength, 0);
+
+        for (int j = 0; j < mLen; j++) {
+            long mj = small[j];
+            long carry = 0;
+            for (int i = 0; i < mag.length; i++) {
+                long t = mj * mag[i] + work[i + j] + carry;
+                carry = t / Limbs.BASE;
+                work[i + j] = (int) (t - carry * Limbs.BASE);
+            }
+            work[mag.length + j] = (int) carry;
+        }
+        while (productLength > 0 && work[productLength - 1] == 0)
+            productLength--;
+
+        addMagnitude(work, 0, productLength, (val.signum() < 0) != (m < 0));
+        return this;
+    }
+
+    //// decimal shifts
+    // multiplies by 10^n for positive n, divides by 10^-n truncating towards zero for negative n
+    public MutableBigNumber shiftDecimal(int n) {
+        if (n == 0 || length == 0)
+            return this;
+
+        if (n > 0) {
+            int limbShift = n / Limbs.DIGITS;
+            multiplyBySingleLimb(Limbs.pow10(n % Limbs.DIGITS));
+            if (limbShift > 0) {
+                ensureCapacity(length + limbShift);
+                System.arraycopy(limbs, 0, limbs, limbShift, length);
+                Arrays.fill(limbs, 0, limbShift, 0);
+                length += limbShift;
+            }
+            return this;
+        }
+
+        // -Integer.MIN_VALUE overflows, and 10^(2^31) is past any value anyway
+        if (n == Integer.MIN_VALUE)
+            return setZero();
+        n = -n;
+        int limbShift = n / Limbs.DIGITS;
+        if (limbShift >= length)
+            return setZero();
+        if (limbShift > 0) {
+            System.arraycopy(limbs, limbShift, limbs, 0, length - limbShift);
+            clear(length - limbShift);
+        }
+
+        int d = Limbs.pow10(n % Limbs.DIGITS);
+        if (d != 1) {
+            long rem = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                long t = rem * Limbs.BASE + limbs[i];
+                limbs[i] = (int) (t / d);
+                rem = t - (long) limbs[i] * d;
+            }
+            normalize();
+        }
+        return this;
+    }
+
+    //// sign, comparison & conversion
+    public MutableBigNumber negate() {
+        negative = !negative && length != 0;
+        return this;
+    }
+
+    public int signum() {
+        if (length == 0)
+            return 0;
+        return negative ? -1 : 1;
+    }
+
+    public boolean isZero() {
+        return length == 0;
+    }
+
+    public int compareTo(BigNumber val) {
+        int s = signum();
+        int vs = val.signum();
+        if (s != vs)
+            return s > vs ? 1 : -1;
+
+        int[] mag = val.magnitude();
+        int cmp = Limbs.compare(limbs, 0, length, mag, 0, mag.length);
+        return negative ? -cmp : cmp;
+    }
+
+    public BigNumber toBigNumber() {
+        if (length == 0)
+            return BigNumber.ZERO;
+        return BigNumber.fromMagnitude(Arrays.copyOf(limbs, length), negative);
+    }
+
+    @Override
+    public String toString() {
+        return toBigNumber().toString();
+    }
+
+    //// kernels
+    // adds (or, with srcNegative != negative, subtracts) src[off, off + len) in place
+    private void addMagnitude(int[] src, int off, int len, boolean srcNegative) {
+        if (len == 0)
+            return;
+        if (length == 0)
+            negative = srcNegative;
+
+        if (negative == srcNegative) {
+            ensureCapacity(Math.max(length, len) + 1);
+            int carry = 0;
+            int i = 0;
+            for (; i < len; i++) {
+                int sum = limbs[i] + src[off + i] + carry;
+                if (sum >= Limbs.BASE) {
+                    limbs[i] = sum - Limbs.BASE;
+                    carry = 1;
+                } else {
+                    limbs[i] = sum;
+                    carry = 0;
+                }
+            }
+            for (; carry != 0; i++) {
+                int sum = limbs[i] + 1;
+                if (sum == Limbs.BASE) {
+                    limbs[i] = 0;
+                } else {
+                    limbs[i] = sum;
+                    carry = 0;
+                }
+            }
+            length = Math.max(length, i);
+            return;
+        }
+
+        int cmp = Limbs.compare(limbs, 0, length, src, off, len);
+        if (cmp == 0) {
+            setZero();
+        } else if (cmp > 0) {
+            // this -= src
+            int borrow = 0;
+            int i = 0;
+            for (; i < len; i++) {
+                int diff = limbs[i] - src[off + i] - borrow;
+                if (diff < 0) {
+                    limbs[i] = diff + Limbs.BASE;
+                    borrow = 1;
+                } else {
+                    limbs[i] = diff;
+                    borrow = 0;
+                }
+            }
+            for (; borrow != 0; i++) {
+                if (limbs[i] == 0) {
+                    limbs[i] = Limbs.BASE - 1;
+                } else {
+                    limbs[i]--;
+                    borrow = 0;
+                }
+            }
+            normalize();
+        } else {
+            // this = src - this, taking the sign of src
+            ensureCapacity(len);
+            int borrow = 0;
+            for (int i = 0; i < len; i++) {
+                int diff = src[off + i] - limbs[i] - borrow;
+                if (diff < 0) {
+                    limbs[i] = diff + Limbs.BASE;
+                    borrow = 1;
+                } else {
+                    limbs[i] = diff;
+                    borrow = 0;
+                }
+            }
+            length = len;
+            negative = srcNegative;
+            normalize();
+        }
+    }
+
+    // 0 < m < BASE
+    private void multiplyBySingleLimb(int m) {
+        if (m == 1)
+            return;
+        ensureCapacity(length + 1);
+        long carry = 0;
+        for (int i = 0; i < length; i++) {
+            long t = (long) limbs[i] * m + carry;
+            carry = t / Limbs.BASE;
+            limbs[i] = (int) (t - carry * Limbs.BASE);
+        }
+        if (carry != 0)
+            limbs[length++] = (int) carry;
+    }
+
+    // from the top limb down, so every limb is read before it is overwritten
+    private void multiplyBySmall(int[] m, int mLen) {
+        ensureCapacity(length + mLen);
+        for (int i = length - 1; i >= 0; i--) {
+            long x = limbs[i];
+            limbs[i] = 0;
+            long carry = 0;
+            for (int j = 0; j < mLen; j++) {
+                long t = x * m[j] + limbs[i + j] + carry;
+                carry = t / Limbs.BASE;
+                limbs[i + j] = (int) (t - carry * Limbs.BASE);
+            }
+            for (int p = i + mLen; carry != 0; p++) {
+                long t = limbs[p] + carry;
+                carry = t / Limbs.BASE;
+                limbs[p] = (int) (t - carry * Limbs.BASE);
+            }
+        }
+        length += mLen;
+        normalize();
+    }
+
+    //// buffer management
+    // writes |val| into small and returns its limb count
+    private int toSmall(long val) {
+        int n = 0;
+        while (val != 0) {
+            small[n++] = Math.abs((int) (val % Limbs.BASE));
+            val /= Limbs.BASE;
+        }
+        return n;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > limbs.length)
+            limbs = Arrays.copyOf(limbs, Math.max(capacity, 2 * limbs.length));
+    }
+
+    private void normalize() {
+        while (length > 0 && limbs[length - 1] == 0)
+            length--;
+        if (length == 0)
+            negative = false;
+    }
+
+    // zeroes limbs[newLength, length) and shrinks to newLength
+    private void clear(int newLength) {
+        Arrays.fill(limbs, newLength, length, 0);
+        length = newLength;
+        normalize();
+    }
+}
@@ -0,0 +1,193 @@
+package bignumbers;
+
+// Multiplication through number-theoretic transforms.
+// The limbs of both operands are convolved modulo three primes below 2^30
+// and the exact coefficients are recovered with the Chinese remainder
+// theorem; every coefficient is below min(aLen, bLen) * 10^18, far under
+// the product of the three primes for any length the transforms allow.
+// Used by Multiplication once both operands reach THRESHOLD limbs, which can
+// be overridden with the system property bignumbers.multiply.nttThreshold.
+final class NttMultiplication {
+
+    static final int THRESHOLD = Integer.getInteger("bignumbers.multiply.nttThreshold", 1000);
+
+    // every prime has the form c * 2^k + 1 with k >= 23, so 2^23 is the longest transform
+    static final int MAX_LENGTH = 1 << 23;
+
+    static final int P1 = 998244353;
+    static final int P2 = 167772161;
+    static final int P3 = 469762049;
+    // 3 is a primitive root of all three primes
+    private static final int GENERATOR = 3;
+
+    private static final long INV_P1_MOD_P2 = powMod(P1, P2 - 2, P2);
+    private static final long INV_P1_MOD_P3 = powMod(P1, P3 - 2, P3);
+    private static final long INV_P2_MOD_P3 = powMod(P2, P3 - 2, P3);
+    private static final long P1_P2_HIGH = (long) P1 * P2 / Limbs.BASE;
+    private static final long P1_P2_LOW = (long) P1 * P2 % Limbs.BASE;
+
+    private NttMultiplication() {
+    }
+
+    static boolean supports(int aLen, int bLen) {
+        return aLen + bLen - 1 <= MAX_LENGTH;
+    }
+
+    static int[] multiply(LimbView a, LimbView b) {
+        int n = transformLength(a.length + b.length - 1);
+        int[] r1 = convolution(a, b, n, P1);
+        int[] r2 = convolution(a, b, n, P2);
+        int[] r3 = convolution(a, b, n, P3);
+        return combine(r1, r2, r3, a.length + b.length);
+    }
+
+    static int transformLength(int length) {
+        int n = 1;
+        while (n < length)
+            n <<= 1;
+        return n;
+    }
+
+    //// convolution modulo one prime
+    // returns the cyclic convolution of a and b of length n, reduced modulo p
+    static int[] convolution(LimbView a, LimbView b, int n, int p) {
+        int[] x = load(a, n, p);
+        int[][] table = twiddles(n, p, false);
+        forward(x, table, p);
+
+        int[] y;
+        if (a == b) {
+            y = x;
+        } else {
+            y = load(b, n, p);
+            forward(y, table, p);
+        }
+
+        for (int i = 0; i < n; i++)
+            x[i] = (int) ((long) x[i] * y[i] % p);
+
+        inverse(x, twiddles(n, p, true), p);
+        return x;
+    }
+
+    private static int[] load(LimbView a, int n, int p) {
+        int[] x = new int[n];
+        for (int i = 0; i < a.length; i++)
+            x[i] = a.limbs[a.offset + i] % p;
+        return x;
+    }
+
+    // decimation in frequency: natural order in, bit-reversed order out
+    private static void forward(int[] a, int[][] table, int p) {
+        int[] w = table[0];
+        int[] wShoup = table[1];
+        int n = a.length;
+        for (int len = n >> 1; len >= 1; len >>= 1) {
+            for (int i = 0; i < n; i += 2 * len) {
+                for (int j = 0; j < len; j++) {
+                    int u = a[i + j];
+                    int v = a[i + j + len];
+                    int sum = u + v;
+                    a[i + j] = sum >= p ? sum - p : sum;
+                    a[i + j + len] = mulShoup(u - v + p, w[len + j], wShoup[len + j], p);
+                }
+            }
+        }
+    }
+
+    // decimation in time: bit-reversed order in, natural order out, scaled by 1/n
+    private static void inverse(int[] a, int[][] table, int p) {
+        int[] w = table[0];
+        int[] wShoup = table[1];
+        int n = a.length;
+        for (int len = 1; len < n; len <<= 1) {
+            for (int i = 0; i < n; i += 2 * len) {
+                for (int j = 0; j < len; j++) {
+                    int u = a[i + j];
+                    int v = mulShoup(a[i + j + len], w[len + j], wShoup[len + j], p);
+                    int sum = u + v;
+                    int diff = u - v;
+                    a[i + j] = sum >= p ? sum - p : sum;
+                    a[i + j + len] = diff < 0 ? diff + p : diff;
+                }
+            }
+        }
+
+        int nInv = (int) powMod(n, p - 2, p);
+        int nInvShoup = shoup(nInv, p);
+        for (int i = 0; i < n; i++)
+            a[i] = mulShoup(a[i], nInv, nInvShoup, p);
+    }
+
+    // entries [len, 2 * len) hold the powers 0 .. len - 1 of a root of unity of order 2 * len,
+    // next to their Shoup companions floor(w * 2^32 / p)
+    private static int[][] twiddles(int n, int p, boolean inverse) {
+        int[] w = new int[Math.max(n, 2)];
+        int[] wShoup = new int[w.length];
+        int half = Math.max(n >> 1, 1);
+
+        long root = powMod(GENERATOR, (p - 1) / (2L * half), p);
+        if (inverse)
+            root = powMod(root, p - 2, p);
+
+        long power = 1;
+        for (int j = 0; j < half; j++) {
+            w[half + j] = (int) power;
+            power = power * root % p;
+        }
+        for (int len = half >> 1; len >= 1; len >>= 1) {
+            for (int j = 0; j < len; j++)
+                w[len + j] = w[2 * len + 2 * j];
+        }
+        for (int i = 1; i < w.length; i++)
+            wShoup[i] = shoup(w[i], p);
+
+        return new int[][] {w, wShoup};
+    }
+
+    private static int shoup(int w, int p) {
+        return (int) (((long) w << 32) / p);
+    }
+
+    // a * w mod p for a < 2p and a precomputed companion of w
+    private static int mulShoup(int a, int w, int wShoup, int p) {
+        long q = ((long) a * (wShoup & 0xFFFFFFFFL)) >>> 32;
+        int r = (int) ((long) a * w - q * p);
+        return r >= p ? r - p : r;
+    }
+
+    static long powMod(long base, long exp, long mod) {
+        long result = 1;
+        base %= mod;
+        while (exp > 0) {
+            if ((exp & 1) != 0)
+                result = result * base % mod;
+            base = base * base % mod;
+            exp >>= 1;
+        }
+        return result;
+    }
+
+    //// Chinese remainder reconstruction (Garner) and carry propagation
+    static int[] combine(int[] r1, int[] r2, int[] r3, int length) {
+        int[] result = new int[length];
+        int terms = Math.min(length - 1, r1.length);
+        long carry = 0;
+        for (int i = 0; i < terms; i++) {
+            long x1 = r1[i];
+            long x2 = (r2[i] - x1 % P2 + P2) % P2 * INV_P1_MOD_P2 % P2;
+            long x3 = (r3[i] - x1 % P3 + P3) % P3 * INV_P1_MOD_P3 % P3;
+            x3 = (x3 - x2 % P3 + P3) % P3 * INV_P2_MOD_P3 % P3;
+
+            // coefficient = x1 + x2 * P1 + x3 * P1 * P2, folded into the running carry
+            long t = x1 + x2 * P1 + x3 * P1_P2_LOW + carry;
+            result[i] = (int) (t % Limbs.BASE);
+            carry = t / Limbs.BASE + x3 * P1_P2_HIGH;
+        }
+        for (int i = terms; i < length && carry != 0; i++) {
+            result[i] = (int) (carry % Limbs.BASE);
+            carry /= Limbs.BASE;
+        }
+        return Limbs.stripLeadingZeros(result);
+    }
+}
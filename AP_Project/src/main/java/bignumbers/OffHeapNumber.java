@@ -0,0 +1,314 @@
+package bignumbers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// An integer whose limbs live outside the Java heap (see LimbStore), for
+// numbers too long for the int[] of a BigNumber or for the heap itself.
+// The operations stream over the limbs in heap chunks of CHUNK_LIMBS: add and
+// subtract carry from one chunk to the next, compareTo reads from the top, and
+// multiply is schoolbook over blocks of BLOCK_LIMBS limbs, each block product
+// done by Multiplication on the heap and added into the off-heap result.
+// Every result is a new OffHeapNumber owning new memory; close() releases it at
+// once, and using a number after that throws an IllegalStateException, also
+// on a thread that was using it when it was closed; an operation that fails
+// releases the memory of its unfinished result. The block size can be
+// overridden with the system property bignumbers.offheap.blockLimbs.
+public final class OffHeapNumber implements Closeable, Comparable<OffHeapNumber> {
+
+    private static final int CHUNK_LIMBS = 1 << 16;
+    static final int BLOCK_LIMBS = Integer.getInteger("bignumbers.offheap.blockLimbs", 1 << 20);
+
+    // normalized: no zero limb on top, none at all for zero
+    private final LimbStore limbs;
+    private final boolean negative;
+
+    OffHeapNumber(LimbStore limbs, boolean negative) {
+        this.limbs = limbs;
+        this.negative = negative && limbs.length() != 0;
+    }
+
+    //// conversions
+    public static OffHeapNumber of(BigNumber val) {
+        int[] mag = val.magnitude();
+        LimbStore store = LimbStore.allocate(mag.length);
+        try {
+            store.write(0, mag, mag.length);
+        } catch (RuntimeException | Error e) {
+            store.close();
+            throw e;
+        }
+        return new OffHeapNumber(store, val.signum() < 0);
+    }
+
+    // the syntax of BigNumber.fromFile; the file is read twice, see DecimalParser.parseOffHeap
+    public static OffHeapNumber fromFile(Path path) throws IOException {
+        return DecimalParser.parseOffHeap(path);
+    }
+
+    public BigNumber toBigNumber() {
+        long length = limbs.length();
+        if (length > Integer.MAX_VALUE - 8)
+            throw new ArithmeticException("OffHeapNumber too large for BigNumber");
+        if (length == 0)
+            return BigNumber.ZERO;
+        int[] mag = new int[(int) length];
+        limbs.read(0, mag, mag.length);
+        return BigNumber.fromMagnitude(mag, negative);
+    }
+
+    //// queries
+    public int signum() {
+        return limbs.length() == 0 ? 0 : negative ? -1 : 1;
+    }
+
+    public long digitCount() {
+        long length = limbs.length();
+        if (length == 0)
+            return 1;
+        return (length - 1) * Limbs.DIGITS + Limbs.digitCount(limbs.get(length - 1));
+    }
+
+    @Override
+    public int compareTo(OffHeapNumber val) {
+        if (negative != val.negative)
+            return negative ? -1 : 1;
+        int c = compareMagnitudes(limbs, val.limbs);
+        return negative ? -c : c;
+    }
+
+    //// arithmetic
+    public OffHeapNumber negate() {
+        return new OffHeapNumber(copy(limbs), !negative);
+    }
+
+    public OffHeapNumber add(OffHeapNumber val) {
+        return add(val, val.negative);
+    }
+
+    public OffHeapNumber subtract(OffHeapNumber val) {
+        return add(val, !val.negative);
+    }
+
+    // this + (-1)^valNegative |val|
+    private OffHeapNumber add(OffHeapNumber val, boolean valNegative) {
+        if (negative == valNegative)
+            return new OffHeapNumber(addMagnitudes(limbs, val.limbs), negative);
+        int c = compareMagnitudes(limbs, val.limbs);
+        if (c >= 0)
+            return new OffHeapNumber(subtractMagnitudes(limbs, val.limbs), negative);
+        return new OffHeapNumber(subtractMagnitudes(val.limbs, limbs), valNegative);
+    }
+
+    public OffHeapNumber multiply(OffHeapNumber val) {
+        return new OffHeapNumber(multiplyMagnitudes(limbs, val.limbs), negative != val.negative);
+    }
+
+    //// output
+    public void writeTo(Appendable out) throws IOException {
+        writeTo(new DecimalWriter(out));
+    }
+
+    public void writeTo(WritableByteChannel out) throws IOException {
+        writeTo(new DecimalWriter(out));
+    }
+
+    // chunks from the top, so the digits come out in order
+    private void writeTo(DecimalWriter writer) throws IOException {
+        long length = limbs.length();
+        if (length == 0) {
+            writer.text("0");
+        } else {
+            if (negative)
+                writer.minus();
+            int[] chunk = new int[(int) Math.min(CHUNK_LIMBS, length)];
+            for (long to = length; to > 0; ) {
+                int n = (int) Math.min(chunk.length, to);
+                to -= n;
+                limbs.read(to, chunk, n);
+                writer.limbs(chunk, 0, n);
+            }
+        }
+        writer.finish();
+    }
+
+    // the whole text on the heap; writeTo is the way out for long numbers
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        limbs.close();
+    }
+
+    //// kernels over magnitudes
+    private static int compareMagnitudes(LimbStore a, LimbStore b) {
+        if (a.length() != b.length())
+            return a.length() < b.length() ? -1 : 1;
+        int[] x = new int[(int) Math.min(CHUNK_LIMBS, a.length())];
+        int[] y = new int[x.length];
+        for (long to = a.length(); to > 0; ) {
+            int n = (int) Math.min(x.length, to);
+            to -= n;
+            a.read(to, x, n);
+            b.read(to, y, n);
+            for (int i = n - 1; i >= 0; i--) {
+                if (x[i] != y[i])
+                    return x[i] < y[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static LimbStore copy(LimbStore a) {
+        a.checkOpen();
+        LimbStore r = LimbStore.allocate(a.length());
+        try {
+            int[] x = new int[(int) Math.min(CHUNK_LIMBS, a.length())];
+            for (long from = 0; from < a.length(); from += x.length) {
+                int n = (int) Math.min(x.length, a.length() - from);
+                a.read(from, x, n);
+                r.write(from, x, n);
+            }
+            return r;
+        } catch (RuntimeException | Error e) {
+            r.close();
+            throw e;
+        }
+    }
+
+    private static LimbStore addMagnitudes(LimbStore a, LimbStore b) {
+        a.checkOpen();
+        b.checkOpen();
+        long length = Math.max(a.length(), b.length());
+        LimbStore r = LimbStore.allocate(length + 1);
+        try {
+            int[] x = new int[(int) Math.min(CHUNK_LIMBS, length)];
+            int[] y = new int[x.length];
+            int carry = 0;
+            for (long from = 0; from < length; from += x.length) {
+                int n = (int) Math.min(x.length, length - from);
+                a.read(from, x, n);
+                b.read(from, y, n);
+                for (int i = 0; i < n; i++) {
+                    int s = x[i] + y[i] + carry;
+                    carry = s >= Limbs.BASE ? 1 : 0;
+                    x[i] = s - carry * Limbs.BASE;
+                }
+                r.write(from, x, n);
+            }
+            r.put(length, carry);
+            normalize(r);
+            return r;
+        } catch (RuntimeException | Error e) {
+            r.close();
+            throw e;
+        }
+    }
+
+    // a >= b
+    private static LimbStore subtractMagnitudes(LimbStore a, LimbStore b) {
+        a.checkOpen();
+        b.checkOpen();
+        long length = a.length();
+        LimbStore r = LimbStore.allocate(length);
+        try {
+            int[] x = new int[(int) Math.min(CHUNK_LIMBS, length)];
+            int[] y = new int[x.length];
+            int borrow = 0;
+            for (long from = 0; from < length; from += x.length) {
+                int n = (int) Math.min(x.length, length - from);
+                a.read(from, x, n);
+                b.read(from, y, n);
+                for (int i = 0; i < n; i++) {
+                    int s = x[i] - y[i] - borrow;
+                    borrow = s < 0 ? 1 : 0;
+                    x[i] = s + borrow * Limbs.BASE;
+                }
+                r.write(from, x, n);
+            }
+            normalize(r);
+            return r;
+        } catch (RuntimeException | Error e) {
+            r.close();
+            throw e;
+        }
+    }
+
+    // Block schoolbook: every pair of blocks is multiplied on the heap and the
+    // product added into the result at the sum of the block offsets. A block of
+    // the first factor stays on the heap for the whole row.
+    private static LimbStore multiplyMagnitudes(LimbStore a, LimbStore b) {
+        a.checkOpen();
+        b.checkOpen();
+        if (a.length() == 0 || b.length() == 0)
+            return LimbStore.allocate(0);
+
+        LimbStore r = LimbStore.allocate(a.length() + b.length());
+        try {
+            int[] x = new int[(int) Math.min(BLOCK_LIMBS, a.length())];
+            int[] y = new int[(int) Math.min(BLOCK_LIMBS, b.length())];
+            for (long i = 0; i < a.length(); i += x.length) {
+                int[] xi = block(a, i, x);
+                if (xi.length == 0)
+                    continue;
+                for (long j = 0; j < b.length(); j += y.length) {
+                    int[] yj = block(b, j, y);
+                    if (yj.length != 0)
+                        addInto(r, i + j, Multiplication.multiply(xi, yj));
+                }
+            }
+            normalize(r);
+            return r;
+        } catch (RuntimeException | Error e) {
+            r.close();
+            throw e;
+        }
+    }
+
+    // limbs [from, from + buf.length) of a as a normalized magnitude, possibly buf itself
+    private static int[] block(LimbStore a, long from, int[] buf) {
+        int n = (int) Math.min(buf.length, a.length() - from);
+        a.read(from, buf, n);
+        return Limbs.stripLeadingZeros(n == buf.length ? buf : Arrays.copyOf(buf, n));
+    }
+
+    // r += p * BASE^offset; r is long enough to take the carry
+    private static void addInto(LimbStore r, long offset, int[] p) {
+        int[] x = new int[Math.min(CHUNK_LIMBS, p.length)];
+        int carry = 0;
+        for (int from = 0; from < p.length; from += x.length) {
+            int n = Math.min(x.length, p.length - from);
+            r.read(offset + from, x, n);
+            for (int k = 0; k < n; k++) {
+                int s = x[k] + p[from + k] + carry;
+                carry = s >= Limbs.BASE ? 1 : 0;
+                x[k] = s - carry * Limbs.BASE;
+            }
+            r.write(offset + from, x, n);
+        }
+        for (long k = offset + p.length; carry != 0; k++) {
+            int s = r.get(k) + carry;
+            carry = s >= Limbs.BASE ? 1 : 0;
+            r.put(k, s - carry * Limbs.BASE);
+        }
+    }
+
+    private static void normalize(LimbStore r) {
+        long length = r.length();
+        while (length > 0 && r.get(length - 1) == 0)
+            length--;
+        r.truncate(length);
+    }
+}
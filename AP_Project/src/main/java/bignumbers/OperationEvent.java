@@ -0,0 +1,32 @@
+package bignumbers;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for one add, subtract, multiply or divide call (see Metrics)
+@Name("bignumbers.Operation")
+@Label("BigNumber Operation")
+@Category("BigNumber")
+@Description("An arithmetic operation and the algorithm tier at the top of its recursion")
+final class OperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Tier")
+    String tier;
+
+    @Label("Operand Limbs")
+    @Description("Limb count of the longer operand, nine decimal digits per limb")
+    int operandLimbs;
+
+    @Label("Result Limbs")
+    int resultLimbs;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,110 @@
+package bignumbers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Fork/join version of Multiplication.
+// Every splitting step above THRESHOLD limbs forks its independent
+// sub-products (three for Karatsuba, five for Toom-Cook-3, one per chunk of
+// unbalanced operands, one per prime for the transform tier), as long as the
+// parallelism budget of the step allows it; the budget is divided between
+// the children, so at most about maxParallelism leaves run at once. Below the
+// cutoff or without budget the sequential engine takes over, so results are
+// identical to Multiplication.multiply. The cutoff can be overridden with the
+// system property bignumbers.multiply.parallelThreshold.
+final class ParallelMultiplication {
+
+    static final int THRESHOLD = Integer.getInteger("bignumbers.multiply.parallelThreshold", 500);
+
+    private ParallelMultiplication() {
+    }
+
+    // from a task already running in the pool (see ProductTree) the product is computed in place
+    static int[] multiply(int[] a, int[] b, ForkJoinPool pool, int maxParallelism) {
+        ProductTask task = new ProductTask(LimbView.of(a), LimbView.of(b), maxParallelism);
+        if (ForkJoinTask.getPool() == pool)
+            return task.invoke();
+        return pool.invoke(task);
+    }
+
+    static ForkJoinPool defaultPool() {
+        return DefaultPool.POOL;
+    }
+
+    private static final class DefaultPool {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private static final class ProductTask extends RecursiveTask<int[]> implements Multiplication.Products {
+        private static final long serialVersionUID = 1L;
+
+        private final LimbView a;
+        private final LimbView b;
+        private final int budget;
+
+        ProductTask(LimbView a, LimbView b, int budget) {
+            if (a.length < b.length) {
+                LimbView tmp = a;
+                a = b;
+                b = tmp;
+            }
+            this.a = a;
+            this.b = b;
+            this.budget = budget;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (budget <= 1 || b.length < THRESHOLD || b.length < Multiplication.KARATSUBA_THRESHOLD)
+                return Multiplication.multiply(a, b);
+
+            if (b.length >= NttMultiplication.THRESHOLD && NttMultiplication.supports(a.length, b.length)
+                    && budget < 5)
+                return transform();
+            if (2 * b.length <= a.length)
+                return Multiplication.unbalanced(a, b, this);
+            if (b.length < Multiplication.TOOM_COOK_THRESHOLD)
+                return Multiplication.karatsuba(a, b, this);
+            return Multiplication.toomCook3(a, b, this);
+        }
+
+        // the three prime convolutions are independent
+        private int[] transform() {
+            final int n = NttMultiplication.transformLength(a.length + b.length - 1);
+            RecursiveTask<int[]> c2 = convolution(n, NttMultiplication.P2);
+            RecursiveTask<int[]> c3 = convolution(n, NttMultiplication.P3);
+            c2.fork();
+            c3.fork();
+            int[] r1 = NttMultiplication.convolution(a, b, n, NttMultiplication.P1);
+            return NttMultiplication.combine(r1, c2.join(), c3.join(), a.length + b.length);
+        }
+
+        private RecursiveTask<int[]> convolution(final int n, final int p) {
+            return new RecursiveTask<int[]>() {
+                @Override
+                protected int[] compute() {
+                    return NttMultiplication.convolution(a, b, n, p);
+                }
+            };
+        }
+
+        @Override
+        public int[][] multiply(LimbView[] xs, LimbView[] ys) {
+            int count = xs.length;
+            int childBudget = Math.max(budget / count, 1);
+
+            ProductTask[] tasks = new ProductTask[count];
+            for (int i = 0; i < count; i++)
+                tasks[i] = new ProductTask(xs[i], ys[i], childBudget);
+            for (int i = 1; i < count; i++)
+                tasks[i].fork();
+
+            int[][] products = new int[count][];
+            products[0] = tasks[0].compute();
+            for (int i = 1; i < count; i++)
+                products[i] = tasks[i].join();
+            return products;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package bignumbers;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+// Primes and probable primes.
+// isProbablePrime is the Baillie-PSW test: trial division by the small
+// primes, a strong Fermat test to base 2 (Miller-Rabin with a single base)
+// and a strong Lucas test with Selfridge's parameters; no composite passing
+// both is known. nextProbablePrime sieves a window of odd candidates with all
+// primes below SIEVE_LIMIT, which removes about nine in ten of them, and runs
+// the expensive tests on the survivors in batches on the default fork/join
+// pool, one candidate per worker, keeping the smallest prime of the first
+// batch that contains one.
+final class Primes {
+
+    private static final int SIEVE_LIMIT = 1 << 16;
+    private static final int[] SMALL = upTo(SIEVE_LIMIT);
+    // a single candidate is trial divided by the first TRIAL_PRIMES primes only
+    private static final int TRIAL_PRIMES = 256;
+    // odd candidates per sieve window
+    private static final int WINDOW = 4096;
+
+    private static final BigNumber TWO = BigNumber.fromLong(2);
+
+    private Primes() {
+    }
+
+    //// primality
+    // the sign is ignored, as in BigInteger
+    static boolean isProbablePrime(BigNumber n) {
+        int[] m = n.magnitude();
+        if (m.length == 0)
+            return false;
+        if (Limbs.compare(m, Limbs.fromLong(SIEVE_LIMIT)) < 0)
+            return Arrays.binarySearch(SMALL, m[0]) >= 0;
+        for (int i = 0; i < TRIAL_PRIMES; i++) {
+            if (Limbs.remainderSmall(m, SMALL[i]) == 0)
+                return false;
+        }
+        return bpsw(n.abs());
+    }
+
+    // n odd, above SIEVE_LIMIT and free of the factors trial division looks for
+    private static boolean bpsw(BigNumber n) {
+        ModularContext context = new ModularContext(n);
+        return strongFermat(n, context) && strongLucas(n, context);
+    }
+
+    // n - 1 = d * 2^s with d odd; 2^d = 1 or 2^(d * 2^r) = -1 for some r < s
+    private static boolean strongFermat(BigNumber n, ModularContext context) {
+        BigNumber nMinusOne = n.subtract(BigNumber.ONE);
+        int[] d = nMinusOne.magnitude();
+        int s = 0;
+        while ((d[0] & 1) == 0) {
+            d = Limbs.divideSmall(d, 2);
+            s++;
+        }
+
+        BigNumber x = context.pow(TWO, BigNumber.fromMagnitude(d, false));
+        if (x.equals(BigNumber.ONE) || x.equals(nMinusOne))
+            return true;
+        for (int r = 1; r < s; r++) {
+            x = context.multiply(x, x);
+            if (x.equals(nMinusOne))
+                return true;
+            if (x.equals(BigNumber.ONE))
+                return false;
+        }
+        return false;
+    }
+
+    // Selfridge's method A: the first D of 5, -7, 9, -11, ... with Jacobi symbol (D/n) = -1,
+    // P = 1 and Q = (1 - D) / 4; n + 1 = d * 2^s with d odd, then U(d) = 0 or
+    // V(d * 2^r) = 0 for some r < s
+    private static boolean strongLucas(BigNumber n, ModularContext context) {
+        long d = 5;
+        for (int tries = 0; ; tries++) {
+            int j = jacobi(d, n);
+            if (j == -1)
+                break;
+            if (j == 0)
+                return false;
+            // no D works for a perfect square, so look for one once the first few failed
+            if (tries == 8 && isSquare(n))
+                return false;
+            d = d > 0 ? -d - 2 : -d + 2;
+        }
+        int[] bigD = context.internal(BigNumber.fromLong(d));
+        int[] q = context.internal(BigNumber.fromLong((1 - d) / 4));
+
+        int[] k = n.add(BigNumber.ONE).magnitude();
+        int s = 0;
+        while ((k[0] & 1) == 0) {
+            k = Limbs.divideSmall(k, 2);
+            s++;
+        }
+        int[] bits = ModularContext.toBinary(k, 0);
+
+        // U(1) = 1, V(1) = P = 1, then doubling and, for set bits, one increment per bit;
+        // all of it in the internal form of the context
+        int[] u = context.internal(BigNumber.ONE);
+        int[] v = u;
+        int[] qk = q;
+        for (int i = ModularContext.bitLength(bits) - 2; i >= 0; i--) {
+            u = context.internalMultiply(u, v);
+            v = context.internalSubtract(context.internalMultiply(v, v), context.internalAdd(qk, qk));
+            qk = context.internalMultiply(qk, qk);
+            if (ModularContext.bit(bits, i) != 0) {
+                int[] nextU = context.internalHalf(context.internalAdd(u, v));
+                v = context.internalHalf(context.internalAdd(context.internalMultiply(bigD, u), v));
+                u = nextU;
+                qk = context.internalMultiply(qk, q);
+            }
+        }
+
+        if (ModularContext.isZero(u) || ModularContext.isZero(v))
+            return true;
+        for (int r = 1; r < s; r++) {
+            v = context.internalSubtract(context.internalMultiply(v, v), context.internalAdd(qk, qk));
+            if (ModularContext.isZero(v))
+                return true;
+            qk = context.internalMultiply(qk, qk);
+        }
+        return false;
+    }
+
+    // Jacobi symbol (d/n) for odd n > |d| and odd |d| < BASE
+    private static int jacobi(long d, BigNumber n) {
+        int[] m = n.magnitude();
+        int nMod4 = m[0] & 3;
+        int result = 1;
+        if (d < 0 && nMod4 == 3)
+            result = -result;
+        long a = Math.abs(d);
+        // quadratic reciprocity, both are odd
+        if ((a & 3) == 3 && nMod4 == 3)
+            result = -result;
+        return result * jacobi(Limbs.remainderSmall(m, (int) a), a);
+    }
+
+    // Jacobi symbol (a/n) for odd n > 0
+    private static int jacobi(long a, long n) {
+        int result = 1;
+        a %= n;
+        while (a != 0) {
+            while ((a & 1) == 0) {
+                a >>= 1;
+                long r = n & 7;
+                if (r == 3 || r == 5)
+                    result = -result;
+            }
+            long t = a;
+            a = n;
+            n = t;
+            if ((a & 3) == 3 && (n & 3) == 3)
+                result = -result;
+            a %= n;
+        }
+        return n == 1 ? result : 0;
+    }
+
+    // Newton iteration from above
+    private static boolean isSquare(BigNumber n) {
+        return n.sqrtAndRemainder()[1].signum() == 0;
+    }
+
+    //// candidate search
+    // the smallest probable prime above n
+    static BigNumber nextProbablePrime(BigNumber n) {
+        if (n.signum() < 0)
+            throw new ArithmeticException("Negative start");
+        if (n.compareTo(TWO) < 0)
+            return TWO;
+
+        // odd candidates from n + 1 on
+        BigNumber start = n.add((n.magnitude()[0] & 1) == 0 ? BigNumber.ONE : TWO);
+        while (start.compareTo(BigNumber.fromLong(SIEVE_LIMIT)) < 0) {
+            if (isProbablePrime(start))
+                return start;
+            start = start.add(TWO);
+        }
+
+        int parallelism = ParallelMultiplication.defaultPool().getParallelism();
+        while (true) {
+            int[] candidates = sieve(start);
+            for (int from = 0; from < candidates.length; from += parallelism) {
+                int to = Math.min(from + parallelism, candidates.length);
+                int found = ProductTree.invoke(new SearchTask(start, candidates, from, to));
+                if (found >= 0)
+                    return start.add(BigNumber.fromLong(2L * found));
+            }
+            start = start.add(BigNumber.fromLong(2L * WINDOW));
+        }
+    }
+
+    // offsets i of the candidates start + 2i, i < WINDOW, without a factor below SIEVE_LIMIT;
+    // start is odd and above SIEVE_LIMIT, so no candidate is one of the sieving primes
+    private static int[] sieve(BigNumber start) {
+        int[] m = start.magnitude();
+        boolean[] composite = new boolean[WINDOW];
+        for (int k = 1; k < SMALL.length; k++) {
+            int p = SMALL[k];
+            // start + 2i = 0 mod p  <=>  i = -start / 2 mod p
+            long r = Limbs.remainderSmall(m, p);
+            long i = (p - r) % p * ((p + 1) / 2) % p;
+            for (; i < WINDOW; i += p)
+                composite[(int) i] = true;
+        }
+
+        int[] candidates = new int[WINDOW];
+        int count = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            if (!composite[i])
+                candidates[count++] = i;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    // tests candidates[from, to) side by side and returns the smallest offset that passes, or -1
+    private static final class SearchTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final BigNumber start;
+        private final int[] candidates;
+        private final int from;
+        private final int to;
+
+        SearchTask(BigNumber start, int[] candidates, int from, int to) {
+            this.start = start;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from == 1) {
+                BigNumber candidate = start.add(BigNumber.fromLong(2L * candidates[from]));
+                return bpsw(candidate) ? candidates[from] : -1;
+            }
+
+            int mid = (from + to) >>> 1;
+            SearchTask high = new SearchTask(start, candidates, mid, to);
+            high.fork();
+            int low = new SearchTask(start, candidates, from, mid).compute();
+            int h = high.join();
+            return low >= 0 ? low : h;
+        }
+    }
+
+    //// sieve of Eratosthenes over the odd numbers
+    static int[] upTo(int n) {
+        if (n < 2)
+            return new int[0];
+        int half = (n - 1) / 2;
+        // composite[i] stands for 2 * i + 3
+        boolean[] composite = new boolean[half];
+        int count = 1;
+        for (int i = 0; i < half; i++) {
+            if (composite[i])
+                continue;
+            count++;
+            long p = 2L * i + 3;
+            for (long j = (p * p - 3) / 2; j < half; j += p)
+                composite[(int) j] = true;
+        }
+
+        int[] primes = new int[count];
+        primes[0] = 2;
+        int k = 1;
+        for (int i = 0; i < half; i++) {
+            if (!composite[i])
+                primes[k++] = 2 * i + 3;
+        }
+        return primes;
+    }
+}
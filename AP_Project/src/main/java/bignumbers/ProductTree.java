@@ -0,0 +1,125 @@
+package bignumbers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Products and sums of many numbers.
+// A product is evaluated as a balanced binary tree, so the operands of every
+// multiplication have about the same length and the fast tiers of
+// Multiplication do the work, instead of a left fold that multiplies one
+// growing number by one small number at every step. The two halves of a
+// range are evaluated in parallel as long as the parallelism budget allows
+// it (as in ParallelMultiplication), and the multiplications near the root
+// go through ParallelMultiplication themselves. Sums are linear anyway and
+// are only split for parallelism, each leaf adding into a MutableBigNumber.
+final class ProductTree {
+
+    // ranges of this many values or less are not split any further across threads
+    private static final int PRODUCT_LEAF = 16;
+    private static final int SUM_LEAF = 1024;
+
+    private ProductTree() {
+    }
+
+    static BigNumber product(BigNumber[] values) {
+        if (values.length == 0)
+            return BigNumber.ONE;
+        ForkJoinPool pool = ParallelMultiplication.defaultPool();
+        return invoke(new ProductTask(values, 0, values.length, pool, pool.getParallelism()));
+    }
+
+    static BigNumber product(long[] values) {
+        BigNumber[] numbers = new BigNumber[values.length];
+        for (int i = 0; i < values.length; i++)
+            numbers[i] = BigNumber.fromLong(values[i]);
+        return product(numbers);
+    }
+
+    static BigNumber sum(BigNumber[] values) {
+        if (values.length == 0)
+            return BigNumber.ZERO;
+        return invoke(new SumTask(values, 0, values.length,
+                ParallelMultiplication.defaultPool().getParallelism()));
+    }
+
+    // runs a task in the default pool; tasks that are already running there compute it in place
+    static <T> T invoke(ForkJoinTask<T> task) {
+        ForkJoinPool pool = ParallelMultiplication.defaultPool();
+        if (ForkJoinTask.getPool() == pool)
+            return task.invoke();
+        return pool.invoke(task);
+    }
+
+    // sequential balanced product of values[from, to)
+    private static BigNumber product(BigNumber[] values, int from, int to) {
+        if (to - from == 1)
+            return values[from];
+        int mid = (from + to) >>> 1;
+        return product(values, from, mid).multiply(product(values, mid, to));
+    }
+
+    private static final class ProductTask extends RecursiveTask<BigNumber> {
+        private static final long serialVersionUID = 1L;
+
+        private final BigNumber[] values;
+        private final int from;
+        private final int to;
+        private final ForkJoinPool pool;
+        private final int budget;
+
+        ProductTask(BigNumber[] values, int from, int to, ForkJoinPool pool, int budget) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.pool = pool;
+            this.budget = budget;
+        }
+
+        @Override
+        protected BigNumber compute() {
+            if (budget <= 1 || to - from <= PRODUCT_LEAF)
+                return product(values, from, to);
+
+            int mid = (from + to) >>> 1;
+            int childBudget = budget / 2;
+            ProductTask high = new ProductTask(values, mid, to, pool, budget - childBudget);
+            high.fork();
+            BigNumber low = new ProductTask(values, from, mid, pool, childBudget).compute();
+            return low.parallelMultiply(high.join(), pool, budget);
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<BigNumber> {
+        private static final long serialVersionUID = 1L;
+
+        private final BigNumber[] values;
+        private final int from;
+        private final int to;
+        private final int budget;
+
+        SumTask(BigNumber[] values, int from, int to, int budget) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+        }
+
+        @Override
+        protected BigNumber compute() {
+            if (budget <= 1 || to - from <= SUM_LEAF) {
+                MutableBigNumber sum = new MutableBigNumber();
+                for (int i = from; i < to; i++)
+                    sum.add(values[i]);
+                return sum.toBigNumber();
+            }
+
+            int mid = (from + to) >>> 1;
+            int childBudget = budget / 2;
+            SumTask high = new SumTask(values, mid, to, budget - childBudget);
+            high.fork();
+            BigNumber low = new SumTask(values, from, mid, childBudget).compute();
+            return low.add(high.join());
+        }
+    }
+}
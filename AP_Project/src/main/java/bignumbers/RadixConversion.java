@@ -0,0 +1,163 @@
+package bignumbers;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Conversions between the decimal limbs and binary: BigInteger and big-endian
+// two's complement bytes. Both directions split the number at a power of the
+// other radix, convert the halves recursively and join them with one
+// multiplication, so the cost is a logarithmic number of multiplications of
+// falling size instead of a quadratic digit loop. Binary to decimal splits the
+// 32-bit words at 2^(32 2^k) and joins with Multiplication, whose fast tiers
+// then do the work; decimal to binary splits the limbs at BASE^(2^k) and joins
+// with BigInteger arithmetic. Blocks of up to LEAF words or limbs are converted
+// directly. The powers are squared into a cache once and shared.
+final class RadixConversion {
+
+    private static final int LEAF = 32;
+
+    // 2^(32 2^k) and BASE^(2^k), grown on demand
+    private static volatile BigNumber[] binaryPowers = {BigNumber.fromLong(1L << 32)};
+    private static volatile BigInteger[] decimalPowers = {BigInteger.valueOf(Limbs.BASE)};
+
+    private RadixConversion() {
+    }
+
+    //// BigInteger and two's complement
+    static BigInteger toBigInteger(int[] mag, boolean negative) {
+        BigInteger r = toBigInteger(mag, 0, mag.length);
+        return negative ? r.negate() : r;
+    }
+
+    static BigNumber fromTwosComplement(byte[] bytes) {
+        if (bytes.length == 0)
+            throw new NumberFormatException("Zero length byte array");
+
+        // little-endian words, sign extended into the top word
+        int n = (bytes.length + 3) / 4;
+        int[] words = new int[n];
+        for (int i = 0; i < bytes.length; i++)
+            words[i / 4] |= (bytes[bytes.length - 1 - i] & 0xFF) << (8 * (i % 4));
+        boolean negative = bytes[0] < 0;
+        if (negative) {
+            if (bytes.length % 4 != 0)
+                words[n - 1] |= -1 << (8 * (bytes.length % 4));
+            // the magnitude of a negative value is ~v + 1
+            int carry = 1;
+            for (int i = 0; i < n; i++) {
+                words[i] = ~words[i] + carry;
+                carry = carry == 1 && words[i] == 0 ? 1 : 0;
+            }
+        }
+        return BigNumber.fromMagnitude(fromWords(words, 0, n), negative);
+    }
+
+    //// binary to decimal
+    // the unsigned value of words[from, to), least significant word first
+    static int[] fromWords(int[] words, int from, int to) {
+        while (to > from && words[to - 1] == 0)
+            to--;
+        if (to - from <= LEAF)
+            return leafFromWords(words, from, to);
+
+        int k = 31 - Integer.numberOfLeadingZeros(to - from - 1);
+        int mid = from + (1 << k);
+        int[] high = Multiplication.multiply(fromWords(words, mid, to), binaryPower(k).magnitude());
+        return Limbs.add(high, fromWords(words, from, mid));
+    }
+
+    // Horner's rule in base 10^9: r = r 2^32 + word; a limb shifted by 32 bits
+    // is below 2^62, so the carry fits in a long
+    private static int[] leafFromWords(int[] words, int from, int to) {
+        // 32 bits are less than 1.1 limbs
+        int[] r = new int[(to - from) * 32 / 29 + 2];
+        int len = 0;
+        for (int i = to - 1; i >= from; i--) {
+            long carry = words[i] & 0xFFFFFFFFL;
+            for (int j = 0; j < len; j++) {
+                long t = ((long) r[j] << 32) + carry;
+                carry = t / Limbs.BASE;
+                r[j] = (int) (t - carry * Limbs.BASE);
+            }
+            while (carry != 0) {
+                r[len++] = (int) (carry % Limbs.BASE);
+                carry /= Limbs.BASE;
+            }
+        }
+        return Arrays.copyOf(r, len);
+    }
+
+    //// decimal to binary
+    // the value of mag[from, to)
+    private static BigInteger toBigInteger(int[] mag, int from, int to) {
+        while (to > from && mag[to - 1] == 0)
+            to--;
+        if (to - from <= LEAF)
+            return leafToBigInteger(mag, from, to);
+
+        int k = 31 - Integer.numberOfLeadingZeros(to - from - 1);
+        int mid = from + (1 << k);
+        return toBigInteger(mag, mid, to).multiply(decimalPower(k)).add(toBigInteger(mag, from, mid));
+    }
+
+    // Horner's rule in base 2^32: w = w BASE + limb, then the words as big-endian bytes
+    private static BigInteger leafToBigInteger(int[] mag, int from, int to) {
+        int[] words = new int[to - from];
+        int len = 0;
+        for (int i = to - 1; i >= from; i--) {
+            long carry = mag[i];
+            for (int j = 0; j < len; j++) {
+                long t = (words[j] & 0xFFFFFFFFL) * Limbs.BASE + carry;
+                words[j] = (int) t;
+                carry = t >>> 32;
+            }
+            if (carry != 0)
+                words[len++] = (int) carry;
+        }
+
+        byte[] bytes = new byte[4 * len];
+        for (int j = 0; j < len; j++) {
+            int p = bytes.length - 4 * j;
+            bytes[p - 1] = (byte) words[j];
+            bytes[p - 2] = (byte) (words[j] >>> 8);
+            bytes[p - 3] = (byte) (words[j] >>> 16);
+            bytes[p - 4] = (byte) (words[j] >>> 24);
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    //// cached powers
+    private static BigNumber binaryPower(int k) {
+        BigNumber[] powers = binaryPowers;
+        if (k < powers.length)
+            return powers[k];
+        synchronized (RadixConversion.class) {
+            powers = binaryPowers;
+            if (k >= powers.length) {
+                int old = powers.length;
+                powers = Arrays.copyOf(powers, k + 1);
+                for (int i = old; i <= k; i++)
+                    powers[i] = powers[i - 1].square();
+                binaryPowers = powers;
+            }
+            return powers[k];
+        }
+    }
+
+    private static BigInteger decimalPower(int k) {
+        BigInteger[] powers = decimalPowers;
+        if (k < powers.length)
+            return powers[k];
+        synchronized (RadixConversion.class) {
+            powers = decimalPowers;
+            if (k >= powers.length) {
+                int old = powers.length;
+                powers = Arrays.copyOf(powers, k + 1);
+                for (int i = old; i <= k; i++)
+                    powers[i] = powers[i - 1].multiply(powers[i - 1]);
+                decimalPowers = powers;
+            }
+            return powers[k];
+        }
+    }
+}
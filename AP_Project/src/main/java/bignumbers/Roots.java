@@ -0,0 +1,80 @@
+package bignumbers;
+
+// Integer n-th roots, floor(a^(1/n)), by Newton iteration with precision doubling.
+// The root of a number of L limbs is built from the root of its top half:
+// dropping n k limbs, with k a little under L / 2n, leaves a number whose root
+// has k limbs less, and that root plus one, shifted back by k limbs, is an
+// overestimate good to about half the limbs. One Newton step
+// x - (x^n - a) / (n x^(n-1)) then makes it exact up to one unit, so every
+// level costs one division and a couple of powers of its own size, and the
+// levels below add up to about as much again. The recursion ends at roots of
+// a few limbs, which start from a double estimate.
+//
+// Newton's step with floored divisions never goes below the root (AM-GM), and
+// from above it decreases until it reaches it; so the result is the first x of
+// the sequence with x^n <= a.
+final class Roots {
+
+    private Roots() {
+    }
+
+    // floor(a^(1/n)) for a >= 0 and n >= 2
+    static BigNumber root(BigNumber a, int n) {
+        if (a.signum() == 0 || a.equals(BigNumber.ONE))
+            return a;
+        int[] m = a.magnitude();
+        // 2^n > a: the root is 1
+        if (n > Limbs.digitCount(m) * 3.33)
+            return BigNumber.ONE;
+
+        int k = (m.length - 1 - guard(n)) / (2 * n);
+        BigNumber x;
+        if (k < 1) {
+            x = estimate(m, n);
+            if (x.pow(n).compareTo(a) <= 0)
+                x = step(a, x, 0, n);
+        } else {
+            BigNumber top = BigNumber.fromMagnitude(LimbView.of(m).high(n * k).toArray(), false);
+            x = step(a, root(top, n).add(BigNumber.ONE), k, n);
+        }
+        while (x.pow(n).compareTo(a) > 0)
+            x = step(a, x, 0, n);
+        return x;
+    }
+
+    // floor(((n - 1) x + floor(a / x^(n-1))) / n) for x = y BASE^k. The zero limbs
+    // of x^(n-1) are dropped from both sides of the division, which is several
+    // times slower with them.
+    private static BigNumber step(BigNumber a, BigNumber y, int k, int n) {
+        BigNumber x = y;
+        if (k != 0) {
+            a = BigNumber.fromMagnitude(LimbView.of(a.magnitude()).high(k * (n - 1)).toArray(), false);
+            x = BigNumber.fromMagnitude(Limbs.shiftLeftDecimal(y.magnitude(), k * Limbs.DIGITS), false);
+        }
+        BigNumber q = a.divide(n == 2 ? y : y.pow(n - 1));
+        return x.multiply(BigNumber.fromLong(n - 1)).add(q).divide(BigNumber.fromLong(n));
+    }
+
+    // Limbs kept on top of 2n k so that (n - 1)^n < BASE^guard: then the root of
+    // the top part is close enough for a single step to land within one unit.
+    private static int guard(int n) {
+        return (int) Math.ceil(n * Math.log10(n - 1) / Limbs.DIGITS);
+    }
+
+    // a^(1/n) to about 15 digits from the top three limbs, for roots of a few limbs
+    private static BigNumber estimate(int[] m, int n) {
+        int top = Math.min(3, m.length);
+        double t = 0;
+        for (int i = m.length - 1; i >= m.length - top; i--)
+            t = t * Limbs.BASE + m[i];
+        double log = (Math.log10(t) + (double) (m.length - top) * Limbs.DIGITS) / n;
+
+        // 10^log as a long of up to 16 digits times a power of ten
+        int shift = Math.max(0, (int) Math.floor(log) - 15);
+        long mantissa = (long) Math.ceil(Math.pow(10, log - shift) * (1 + 1e-10)) + 1;
+        int[] x = Limbs.fromLong(mantissa);
+        if (shift > 0)
+            x = Limbs.shiftLeftDecimal(x, shift);
+        return BigNumber.fromMagnitude(x, false);
+    }
+}
@@ -0,0 +1,37 @@
+package bignumbers;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+// Serialized form of BigNumber (see BigNumber.writeReplace): the compact
+// encoding of BigNumberCodec instead of the default field by field form.
+final class SerializedBigNumber implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private BigNumber value;
+
+    // for deserialization
+    public SerializedBigNumber() {
+    }
+
+    SerializedBigNumber(BigNumber value) {
+        this.value = value;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        BigNumberCodec.write(value, out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        value = BigNumberCodec.read(in);
+    }
+
+    private Object readResolve() {
+        return value;
+    }
+}
@@ -0,0 +1,221 @@
+package expression;
+
+import bignumbers.BigNumber;
+
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+// Parses and evaluates expressions, remembering intermediate results.
+// Because nodes are hash-consed (see Node), the result of every operator node
+// can be cached under the node itself: a subexpression that occurs twice is
+// computed once, and after an edit the new text parses to a tree that shares
+// every untouched subtree with the old one, so only the nodes on the path
+// from the edited token to the root are evaluated again. The cache is a LRU
+// map bounded by the total number of digits it holds.
+//
+// Evaluation walks the tree with an explicit stack and checks the interrupt
+// status of the thread before every operation and between the steps of a
+// power, throwing a CancellationException when it is set. A UI submits every
+// edit with submit and cancels the previous Future; a single multiplication
+// or division still runs to completion. An engine can be shared between
+// threads.
+public final class ExpressionEngine {
+
+    private static final long DEFAULT_CACHE_DIGITS = 50_000_000L;
+    // below this many result digits a power is computed in one piece
+    private static final long POWER_STEP_DIGITS = 100_000L;
+
+    private final long maxCacheDigits;
+    private final Map<Node, BigNumber> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheDigits;
+    private long hits;
+    private long evaluations;
+
+    public ExpressionEngine() {
+        this(DEFAULT_CACHE_DIGITS);
+    }
+
+    public ExpressionEngine(long maxCacheDigits) {
+        if (maxCacheDigits < 0)
+            throw new IllegalArgumentException("maxCacheDigits must not be negative");
+        this.maxCacheDigits = maxCacheDigits;
+    }
+
+    public Node parse(String text) throws ParseException {
+        return Parser.parse(text);
+    }
+
+    public BigNumber evaluate(String text) throws ParseException {
+        return evaluate(parse(text));
+    }
+
+    // ArithmeticException for a division by zero or a negative or too large exponent
+    public BigNumber evaluate(Node root) {
+        if (root.isLiteral())
+            return root.getValue();
+
+        // results of this run, which the cache may already have evicted again
+        Map<Node, BigNumber> results = new IdentityHashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.peek();
+            if (valueOf(node, results) != null) {
+                stack.pop();
+                continue;
+            }
+
+            BigNumber a = valueOf(node.getLeft(), results);
+            BigNumber b = node.getOperator().isUnary() ? BigNumber.ZERO : valueOf(node.getRight(), results);
+            if (a == null || b == null) {
+                if (a == null)
+                    stack.push(node.getLeft());
+                if (b == null)
+                    stack.push(node.getRight());
+                continue;
+            }
+
+            stack.pop();
+            checkInterrupt();
+            BigNumber value = apply(node.getOperator(), a, b);
+            results.put(node, value);
+            store(node, value);
+        }
+        return results.get(root);
+    }
+
+    // evaluates on the executor; cancel(true) on the Future stops the evaluation
+    public Future<BigNumber> submit(final Node root, Executor executor) {
+        FutureTask<BigNumber> task = new FutureTask<>(new Callable<BigNumber>() {
+            @Override
+            public BigNumber call() {
+                return evaluate(root);
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    //// cache
+    private BigNumber valueOf(Node node, Map<Node, BigNumber> results) {
+        if (node.isLiteral())
+            return node.getValue();
+        BigNumber value = results.get(node);
+        if (value != null)
+            return value;
+        synchronized (cache) {
+            value = cache.get(node);
+            if (value != null) {
+                hits++;
+                results.put(node, value);
+            }
+        }
+        return value;
+    }
+
+    private void store(Node node, BigNumber value) {
+        long digits = value.digitCount();
+        synchronized (cache) {
+            evaluations++;
+            if (digits > maxCacheDigits)
+                return;
+            BigNumber old = cache.put(node, value);
+            if (old != null)
+                cacheDigits -= old.digitCount();
+            cacheDigits += digits;
+
+            Iterator<BigNumber> eldest = cache.values().iterator();
+            while (cacheDigits > maxCacheDigits) {
+                cacheDigits -= eldest.next().digitCount();
+                eldest.remove();
+            }
+        }
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+            cacheDigits = 0;
+        }
+    }
+
+    // operator nodes whose result was taken from the cache
+    public long getCacheHits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    // operator nodes actually computed
+    public long getEvaluations() {
+        synchronized (cache) {
+            return evaluations;
+        }
+    }
+
+    //// operators
+    private static BigNumber apply(Operator operator, BigNumber a, BigNumber b) {
+        switch (operator) {
+            case ADD:
+                return a.add(b);
+            case SUBTRACT:
+                return a.subtract(b);
+            case MULTIPLY:
+                return a.multiply(b);
+            case DIVIDE:
+                return a.divide(b);
+            case REMAINDER:
+                return a.remainder(b);
+            case NEGATE:
+                return a.negate();
+            case POWER:
+                return pow(a, b);
+            default:
+                throw new AssertionError(operator);
+        }
+    }
+
+    // BigNumber.pow for small results, otherwise the same left-to-right loop with an
+    // interrupt check per step
+    private static BigNumber pow(BigNumber base, BigNumber exponent) {
+        if (exponent.signum() < 0)
+            throw new ArithmeticException("Negative exponent");
+        if (exponent.compareTo(BigNumber.fromLong(Integer.MAX_VALUE)) > 0) {
+            // only 0, 1 and -1 have such powers in range
+            if (base.abs().compareTo(BigNumber.ONE) > 0)
+                throw new ArithmeticException("BigNumber would overflow supported range");
+            boolean odd = exponent.remainder(BigNumber.fromLong(2)).signum() != 0;
+            return base.pow(odd ? 1 : 2);
+        }
+
+        int e = Integer.parseInt(exponent.toString());
+        if ((long) base.digitCount() * e <= POWER_STEP_DIGITS || base.abs().compareTo(BigNumber.ONE) <= 0)
+            return base.pow(e);
+        if ((long) (base.digitCount() - 1) * e > Integer.MAX_VALUE)
+            throw new ArithmeticException("BigNumber would overflow supported range");
+
+        BigNumber result = base;
+        for (int bit = 30 - Integer.numberOfLeadingZeros(e); bit >= 0; bit--) {
+            checkInterrupt();
+            result = result.square();
+            if ((e >>> bit & 1) != 0)
+                result = result.multiply(base);
+        }
+        return result;
+    }
+
+    private static void checkInterrupt() {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Evaluation cancelled");
+    }
+}
@@ -0,0 +1,99 @@
+package expression;
+
+import bignumbers.BigNumber;
+
+// Constant folding and algebraic simplification while a tree is built.
+// Operators on literals are folded right away as long as that is cheap, i.e.
+// both operands have at most FOLD_DIGITS digits (and a power has a small
+// exponent); anything bigger is left to the ExpressionEngine, where it is
+// cached and can be cancelled. The identities x + 0, x - 0, 0 + x, x * 1,
+// 1 * x, x / 1, x ^ 1, 0 - x and -(-x) never drop an operand, so errors such
+// as a division by zero inside the removed part cannot disappear.
+final class Folder {
+
+    private static final int FOLD_DIGITS = 18;
+    private static final int FOLD_EXPONENT = 64;
+
+    private Folder() {
+    }
+
+    static Node literal(BigNumber value) {
+        return Node.literal(value);
+    }
+
+    static Node unary(Operator operator, Node operand) {
+        if (operand.isLiteral())
+            return Node.literal(operand.getValue().negate());
+        // -(-x) is x
+        if (operand.getOperator() == Operator.NEGATE)
+            return operand.getLeft();
+        return Node.unary(operator, operand);
+    }
+
+    static Node binary(Operator operator, Node left, Node right) {
+        if (small(left) && small(right)) {
+            BigNumber folded = fold(operator, left.getValue(), right.getValue());
+            if (folded != null)
+                return Node.literal(folded);
+        }
+
+        switch (operator) {
+            case ADD:
+                if (is(left, BigNumber.ZERO))
+                    return right;
+                if (is(right, BigNumber.ZERO))
+                    return left;
+                break;
+            case SUBTRACT:
+                if (is(right, BigNumber.ZERO))
+                    return left;
+                if (is(left, BigNumber.ZERO))
+                    return unary(Operator.NEGATE, right);
+                break;
+            case MULTIPLY:
+                if (is(left, BigNumber.ONE))
+                    return right;
+                if (is(right, BigNumber.ONE))
+                    return left;
+                break;
+            case DIVIDE:
+            case POWER:
+                if (is(right, BigNumber.ONE))
+                    return left;
+                break;
+            default:
+                break;
+        }
+        return Node.binary(operator, left, right);
+    }
+
+    // null where folding would throw or be expensive; the engine reports the error then
+    private static BigNumber fold(Operator operator, BigNumber a, BigNumber b) {
+        switch (operator) {
+            case ADD:
+                return a.add(b);
+            case SUBTRACT:
+                return a.subtract(b);
+            case MULTIPLY:
+                return a.multiply(b);
+            case DIVIDE:
+                return b.signum() == 0 ? null : a.divide(b);
+            case REMAINDER:
+                return b.signum() == 0 ? null : a.remainder(b);
+            case POWER:
+                if (b.signum() < 0 || b.compareTo(BigNumber.fromLong(FOLD_EXPONENT)) > 0)
+                    return null;
+                return a.pow(Integer.parseInt(b.toString()));
+            default:
+                throw new AssertionError(operator);
+        }
+    }
+
+    private static boolean small(Node node) {
+        return node.isLiteral() && node.getValue().digitCount() <= FOLD_DIGITS;
+    }
+
+    private static boolean is(Node node, BigNumber value) {
+        return node.isLiteral() && node.getValue().equals(value);
+    }
+}
@@ -0,0 +1,133 @@
+package expression;
+
+import bignumbers.BigNumber;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// A node of an expression tree: a literal, or an operator applied to one or two
+// operands.
+// Nodes are hash-consed: every node is built through intern, which returns the
+// existing node when an equal one is alive, so two equal subtrees are always the
+// same object. That makes common subexpressions share one node (and one cache
+// entry of the ExpressionEngine), and equals and hashCode only look one level
+// deep, comparing the operands by identity. Nodes are immutable and the table
+// only holds them weakly.
+public final class Node {
+
+    private static final Map<Node, WeakReference<Node>> TABLE = new WeakHashMap<>();
+
+    private final Operator operator;
+    private final BigNumber value;
+    private final Node left;
+    private final Node right;
+    private final int hash;
+
+    private Node(Operator operator, BigNumber value, Node left, Node right) {
+        this.operator = operator;
+        this.value = value;
+        this.left = left;
+        this.right = right;
+        this.hash = operator == null ? value.hashCode()
+                : 31 * (31 * operator.hashCode() + System.identityHashCode(left)) + System.identityHashCode(right);
+    }
+
+    //// construction, see also Folder
+    static Node literal(BigNumber value) {
+        return intern(new Node(null, value, null, null));
+    }
+
+    static Node unary(Operator operator, Node operand) {
+        return intern(new Node(operator, null, operand, null));
+    }
+
+    static Node binary(Operator operator, Node left, Node right) {
+        return intern(new Node(operator, null, left, right));
+    }
+
+    private static Node intern(Node node) {
+        synchronized (TABLE) {
+            WeakReference<Node> ref = TABLE.get(node);
+            Node existing = ref != null ? ref.get() : null;
+            if (existing != null)
+                return existing;
+            TABLE.put(node, new WeakReference<>(node));
+            return node;
+        }
+    }
+
+    //// accessors
+    public boolean isLiteral() {
+        return operator == null;
+    }
+
+    // null for literals
+    public Operator getOperator() {
+        return operator;
+    }
+
+    // null unless this is a literal
+    public BigNumber getValue() {
+        return value;
+    }
+
+    // the operand of a unary operator, or the left one of a binary operator
+    public Node getLeft() {
+        return left;
+    }
+
+    // null unless the operator is binary
+    public Node getRight() {
+        return right;
+    }
+
+    //// equals, hashCode & toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Node node = (Node) o;
+        if (operator == null)
+            return node.operator == null && value.equals(node.value);
+        return operator == node.operator && left == node.left && right == node.right;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    // fully parenthesized; built with an explicit stack, so long chains do not overflow the call stack
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+            if (top instanceof String) {
+                sb.append((String) top);
+                continue;
+            }
+
+            Node node = (Node) top;
+            if (node.isLiteral()) {
+                sb.append(node.value);
+            } else if (node.operator.isUnary()) {
+                stack.push(")");
+                stack.push(node.left);
+                sb.append("(-");
+            } else {
+                stack.push(")");
+                stack.push(node.right);
+                stack.push(" " + node.operator.getSymbol() + " ");
+                stack.push(node.left);
+                sb.append('(');
+            }
+        }
+        return sb.toString();
+    }
+}
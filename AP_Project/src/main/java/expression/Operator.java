@@ -0,0 +1,35 @@
+package expression;
+
+// The operators of the expression language, by increasing precedence.
+// Division truncates towards zero and % takes the sign of the dividend, as in
+// BigNumber; ^ is right associative and binds tighter than a leading minus,
+// so -2^2 is -4.
+public enum Operator {
+    ADD('+', 1),
+    SUBTRACT('-', 1),
+    MULTIPLY('*', 2),
+    DIVIDE('/', 2),
+    REMAINDER('%', 2),
+    NEGATE('-', 3),
+    POWER('^', 4);
+
+    private final char symbol;
+    private final int precedence;
+
+    Operator(char symbol, int precedence) {
+        this.symbol = symbol;
+        this.precedence = precedence;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    public boolean isUnary() {
+        return this == NEGATE;
+    }
+}
@@ -0,0 +1,113 @@
+package expression;
+
+import bignumbers.BigNumber;
+
+import java.text.ParseException;
+
+// Recursive descent parser for
+//   expression := term (('+' | '-') term)*
+//   term       := unary (('*' | '/' | '%') unary)*
+//   unary      := ('-' | '+') unary | power
+//   power      := primary ('^' unary)?
+//   primary    := digits | '(' expression ')'
+// with whitespace allowed between tokens. Sums and products are built in a
+// loop, so long chains only cost stack for their parentheses. Every node goes
+// through Folder, which folds and interns it.
+final class Parser {
+
+    private final String text;
+    private int pos;
+
+    private Parser(String text) {
+        this.text = text;
+    }
+
+    static Node parse(String text) throws ParseException {
+        Parser parser = new Parser(text);
+        Node node = parser.expression();
+        parser.skipWhitespace();
+        if (parser.pos != text.length())
+            throw parser.error("Unexpected '" + text.charAt(parser.pos) + "'");
+        return node;
+    }
+
+    private Node expression() throws ParseException {
+        Node node = term();
+        while (true) {
+            if (accept('+'))
+                node = Folder.binary(Operator.ADD, node, term());
+            else if (accept('-'))
+                node = Folder.binary(Operator.SUBTRACT, node, term());
+            else
+                return node;
+        }
+    }
+
+    private Node term() throws ParseException {
+        Node node = unary();
+        while (true) {
+            if (accept('*'))
+                node = Folder.binary(Operator.MULTIPLY, node, unary());
+            else if (accept('/'))
+                node = Folder.binary(Operator.DIVIDE, node, unary());
+            else if (accept('%'))
+                node = Folder.binary(Operator.REMAINDER, node, unary());
+            else
+                return node;
+        }
+    }
+
+    private Node unary() throws ParseException {
+        if (accept('-'))
+            return Folder.unary(Operator.NEGATE, unary());
+        if (accept('+'))
+            return unary();
+        return power();
+    }
+
+    private Node power() throws ParseException {
+        Node base = primary();
+        if (accept('^'))
+            return Folder.binary(Operator.POWER, base, unary());
+        return base;
+    }
+
+    private Node primary() throws ParseException {
+        skipWhitespace();
+        if (pos == text.length())
+            throw error("Unexpected end of expression");
+
+        if (accept('(')) {
+            Node node = expression();
+            if (!accept(')'))
+                throw error("Missing ')'");
+            return node;
+        }
+
+        int start = pos;
+        while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9')
+            pos++;
+        if (pos == start)
+            throw error("Unexpected '" + text.charAt(pos) + "'");
+        return Folder.literal(BigNumber.fromString(text, start, pos));
+    }
+
+    //// tokens
+    private boolean accept(char c) {
+        skipWhitespace();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+            pos++;
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(message + " at position " + pos, pos);
+    }
+}
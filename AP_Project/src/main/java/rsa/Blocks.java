@@ -0,0 +1,37 @@
+package rsa;
+
+import bignumbers.BigNumber;
+
+import java.util.Arrays;
+
+// Conversions between big-endian unsigned byte blocks and BigNumber, through
+// the two's complement conversions of BigNumber: an unsigned block is the two's
+// complement form with a zero byte in front.
+final class Blocks {
+
+    private Blocks() {
+    }
+
+    // smallest length with 256^length > val
+    static int byteLength(BigNumber val) {
+        if (val.signum() == 0)
+            return 0;
+        byte[] bytes = val.toByteArray();
+        return bytes[0] == 0 ? bytes.length - 1 : bytes.length;
+    }
+
+    static BigNumber fromBytes(byte[] bytes, int off, int len) {
+        byte[] signed = new byte[len + 1];
+        System.arraycopy(bytes, off, signed, 1, len);
+        return BigNumber.fromTwosComplement(signed);
+    }
+
+    // writes val into out[off, off + len), padded with zero bytes on the left; val < 256^len
+    static void toBytes(BigNumber val, byte[] out, int off, int len) {
+        byte[] bytes = val.toByteArray();
+        int start = bytes[0] == 0 ? 1 : 0;
+        int n = bytes.length - start;
+        Arrays.fill(out, off, off + len - n, (byte) 0);
+        System.arraycopy(bytes, start, out, off + len - n, n);
+    }
+}
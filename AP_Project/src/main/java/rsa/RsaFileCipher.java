@@ -0,0 +1,231 @@
+package rsa;
+
+import bignumbers.BigNumber;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Streaming RSA file encryption and decryption.
+// The source is read in batches of whole blocks, every batch is transformed on
+// a thread pool and the results are written strictly in input order. At most
+// maxInFlight batches are read but not yet written, which bounds the memory use
+// independently of the file size.
+//
+// With a modulus of L bytes a plaintext block is a 0x01 marker, PADDING random
+// bytes and up to L - 2 - PADDING bytes of data, so the value stays below the
+// modulus and leading zero bytes and the length of the last block survive the
+// round trip; every ciphertext block takes exactly L bytes. The random bytes
+// make equal plaintext blocks encrypt differently, but this is still plain RSA
+// on ad hoc padding, without OAEP and without any integrity check: ciphertext
+// can be modified undetected. It is not a secure file encryption scheme.
+public final class RsaFileCipher {
+
+    private static final int BLOCKS_PER_BATCH = 64;
+    private static final int PADDING = 8;
+
+    // thread-safe, shared by the batches
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int threads;
+    private final int maxInFlight;
+
+    public RsaFileCipher() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public RsaFileCipher(int threads) {
+        this(threads, 4 * threads);
+    }
+
+    public RsaFileCipher(int threads, int maxInFlight) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be positive");
+
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Report encrypt(final RsaPublicKey key, Path source, Path target) throws IOException {
+        final int cipherBlock = Blocks.byteLength(key.getModulus());
+        final int plainBlock = cipherBlock - 2 - PADDING;
+        if (plainBlock < 1)
+            throw new IllegalArgumentException("Modulus too small");
+
+        return run(source, target, plainBlock, new Transform() {
+            @Override
+            public byte[] apply(byte[] input, int length) {
+                int blocks = (length + plainBlock - 1) / plainBlock;
+                byte[] output = new byte[blocks * cipherBlock];
+                byte[] marked = new byte[1 + PADDING + plainBlock];
+                byte[] padding = new byte[PADDING];
+                marked[0] = 1;
+                for (int i = 0; i < blocks; i++) {
+                    int len = Math.min(plainBlock, length - i * plainBlock);
+                    RANDOM.nextBytes(padding);
+                    System.arraycopy(padding, 0, marked, 1, PADDING);
+                    System.arraycopy(input, i * plainBlock, marked, 1 + PADDING, len);
+                    BigNumber m = Blocks.fromBytes(marked, 0, 1 + PADDING + len);
+                    Blocks.toBytes(key.encrypt(m), output, i * cipherBlock, cipherBlock);
+                }
+                return output;
+            }
+        });
+    }
+
+    public Report decrypt(final RsaPrivateKey key, Path source, Path target) throws IOException {
+        final BigNumber modulus = key.getPublicKey().getModulus();
+        final int cipherBlock = Blocks.byteLength(modulus);
+
+        return run(source, target, cipherBlock, new Transform() {
+            @Override
+            public byte[] apply(byte[] input, int length) throws IOException {
+                if (length % cipherBlock != 0)
+                    throw new IOException("Truncated ciphertext");
+
+                int blocks = length / cipherBlock;
+                byte[] output = new byte[blocks * (cipherBlock - 2 - PADDING)];
+                byte[] plain = new byte[cipherBlock];
+                int pos = 0;
+                for (int i = 0; i < blocks; i++) {
+                    BigNumber c = Blocks.fromBytes(input, i * cipherBlock, cipherBlock);
+                    if (c.compareTo(modulus) >= 0)
+                        throw new IOException("Corrupt ciphertext block");
+                    Blocks.toBytes(key.decrypt(c), plain, 0, cipherBlock);
+
+                    // skip to the marker, then past the random bytes
+                    int start = 0;
+                    while (start < cipherBlock && plain[start] == 0)
+                        start++;
+                    if (start == 0 || start > cipherBlock - 1 - PADDING || plain[start] != 1)
+                        throw new IOException("Corrupt ciphertext block");
+                    start += 1 + PADDING;
+                    System.arraycopy(plain, start, output, pos, cipherBlock - start);
+                    pos += cipherBlock - start;
+                }
+                return pos == output.length ? output : Arrays.copyOf(output, pos);
+            }
+        });
+    }
+
+    //// pipeline
+    private interface Transform {
+        // input holds length bytes of whole blocks, except that the last block of a file may be short
+        byte[] apply(byte[] input, int length) throws IOException;
+    }
+
+    private Report run(Path source, Path target, int block, final Transform transform) throws IOException {
+        long start = System.nanoTime();
+        long read = 0;
+        long written = 0;
+        int batch = block * BLOCKS_PER_BATCH;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (true) {
+                final byte[] input = new byte[batch];
+                final int length = readFully(in, input);
+                if (length == 0)
+                    break;
+                read += length;
+
+                pending.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return transform.apply(input, length);
+                    }
+                }));
+                if (pending.size() >= maxInFlight)
+                    written += write(out, pending.remove());
+                if (length < batch)
+                    break;
+            }
+            while (!pending.isEmpty())
+                written += write(out, pending.remove());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Report(read, written, System.nanoTime() - start);
+    }
+
+    private static int readFully(FileChannel in, byte[] buf) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(buf);
+        while (buffer.hasRemaining() && in.read(buffer) != -1) {
+        }
+        return buffer.position();
+    }
+
+    private static int write(FileChannel out, Future<byte[]> result) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        return bytes.length;
+    }
+
+    //// throughput
+    public static final class Report {
+        private final long bytesRead;
+        private final long bytesWritten;
+        private final long nanos;
+
+        Report(long bytesRead, long bytesWritten, long nanos) {
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+            this.nanos = nanos;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        // input bytes, in 10^6 bytes per second
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytesRead * 1000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes in %.3f s (%.2f MB/s)", bytesRead, nanos / 1e9, megabytesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package rsa;
+
+import bignumbers.BigNumber;
+import bignumbers.ModularContext;
+import bignumbers.MutableBigNumber;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+// Private key kept as its two primes, so decryption can work modulo p and q
+// separately and recombine the halves with the Chinese remainder theorem.
+public final class RsaPrivateKey {
+
+    // F4, the usual public exponent
+    private static final BigNumber PUBLIC_EXPONENT = BigNumber.fromLong(65537);
+    private static final int MIN_BITS = 32;
+
+    private final BigNumber p;
+    private final BigNumber q;
+    private final BigNumber exponent;
+    private final RsaPublicKey publicKey;
+
+    // d mod (p - 1), d mod (q - 1) and q^-1 mod p
+    private final BigNumber dP;
+    private final BigNumber dQ;
+    private final BigNumber qInv;
+    private final ModularContext contextP;
+    private final ModularContext contextQ;
+
+    public RsaPrivateKey(BigNumber p, BigNumber q, BigNumber publicExponent) {
+        if (p == null || q == null || publicExponent == null)
+            throw new NullPointerException();
+        if (p.equals(q))
+            throw new IllegalArgumentException("p and q must be distinct primes");
+
+        this.p = p;
+        this.q = q;
+        this.publicKey = new RsaPublicKey(p.multiply(q), publicExponent);
+
+        BigNumber p1 = p.subtract(BigNumber.ONE);
+        BigNumber q1 = q.subtract(BigNumber.ONE);
+        this.exponent = publicExponent.modInverse(p1.multiply(q1));
+        this.dP = exponent.mod(p1);
+        this.dQ = exponent.mod(q1);
+        this.qInv = q.modInverse(p);
+        this.contextP = new ModularContext(p);
+        this.contextQ = new ModularContext(q);
+    }
+
+    //// key generation
+    // a new key whose modulus has exactly the given number of bits
+    public static RsaPrivateKey generate(int bits) {
+        return generate(bits, new SecureRandom());
+    }
+
+    public static RsaPrivateKey generate(int bits, Random random) {
+        if (bits < MIN_BITS)
+            throw new IllegalArgumentException("Key size too small");
+
+        int pBits = (bits + 1) / 2;
+        BigNumber p = randomPrime(pBits, random);
+        BigNumber q;
+        do {
+            q = randomPrime(bits - pBits, random);
+        } while (q.equals(p));
+        return new RsaPrivateKey(p, q, PUBLIC_EXPONENT);
+    }
+
+    // a prime in [3 * 2^(bits - 2), 2^bits), so the product of two of them has all its
+    // bits, with p - 1 coprime to the public exponent
+    private static BigNumber randomPrime(int bits, Random random) {
+        BigNumber limit = BigNumber.fromLong(2).pow(bits);
+        BigNumber low = limit.subtract(limit.divide(BigNumber.fromLong(4)));
+        while (true) {
+            // uniform below 2^(bits - 2), 30 bits at a time
+            MutableBigNumber x = new MutableBigNumber();
+            for (int remaining = bits - 2; remaining > 0; remaining -= 30) {
+                int chunk = Math.min(remaining, 30);
+                x.multiplyAdd(1L << chunk, random.nextInt(1 << chunk));
+            }
+
+            BigNumber p = low.add(x.toBigNumber()).nextProbablePrime();
+            if (p.compareTo(limit) < 0
+                    && p.subtract(BigNumber.ONE).remainder(PUBLIC_EXPONENT).signum() != 0)
+                return p;
+        }
+    }
+
+    public RsaPublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public BigNumber getExponent() {
+        return exponent;
+    }
+
+    public BigNumber getP() {
+        return p;
+    }
+
+    public BigNumber getQ() {
+        return q;
+    }
+
+    // c must lie in [0, modulus); both halves use the constant time exponentiation
+    public BigNumber decrypt(BigNumber c) {
+        BigNumber m1 = contextP.powConstantTime(c, dP);
+        BigNumber m2 = contextQ.powConstantTime(c, dQ);
+        BigNumber h = contextP.multiply(qInv, m1.subtract(m2));
+        return m2.add(h.multiply(q));
+    }
+}
@@ -0,0 +1,35 @@
+package rsa;
+
+import bignumbers.BigNumber;
+import bignumbers.ModularContext;
+
+public final class RsaPublicKey {
+
+    private final BigNumber modulus;
+    private final BigNumber exponent;
+    private final ModularContext context;
+
+    public RsaPublicKey(BigNumber modulus, BigNumber exponent) {
+        if (modulus == null || exponent == null)
+            throw new NullPointerException();
+        if (exponent.signum() <= 0)
+            throw new IllegalArgumentException("Exponent not positive");
+
+        this.modulus = modulus;
+        this.exponent = exponent;
+        this.context = new ModularContext(modulus);
+    }
+
+    public BigNumber getModulus() {
+        return modulus;
+    }
+
+    public BigNumber getExponent() {
+        return exponent;
+    }
+
+    // m must lie in [0, modulus)
+    public BigNumber encrypt(BigNumber m) {
+        return context.pow(m, exponent);
+    }
+}
@@ -1,48 +1,31 @@
 package test;
 
 import bignumbers.BigNumber;
+import bignumbers.BigNumberCodec;
+import bignumbers.Divisor;
+import bignumbers.MutableBigNumber;
+import bignumbers.OffHeapNumber;
 import bignumbers.Sign;
 
+import expression.ExpressionEngine;
+
+import rsa.RsaFileCipher;
+import rsa.RsaPrivateKey;
+
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Arrays;
 
 public class Main {
 
     public static void main(String[] args) {
+        if(args.length == 2 && args[0].equals("offheap")){
+            System.exit(offHeapDoubling(Path.of(args[1])) ? 0 : 1);
+        }
 
-//        BigNumber b1 = BigNumber.fromString("-851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458");
-//        BigNumber b2 = BigNumber.fromString("-9587312510981741890571340985632487356358731905713409852513458851735670561309589587334095632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125185251373563587319034098525134588517356324870561375251345885173563248705613731903409852513458851735632487056137319057134098525134588517356357134098525134588515713409852513458851735645885173563248705613731905713409852513458851735631251098174189057134098563248705613340985251345885173563248705613731905713409852513458851735630934098525134588517356324563248705613095873125109817418905713563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312515632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125156324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251409856324870561309587319057134098525134588517356324870561309587312518705613731905713409852513458851735635873190571340985255632485632487056130958731251098174189057134098563248705613095873190571340985632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125152513456324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251588517356324870561309587312517056130958731251098174189057134098556324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251632487056130958731905713409852513458851735632487056130958731251134588517356324870561373190340985263248705613095873125109817418905713409856351345885175632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125135563248705613095873125109817418905713409856324870561309587319057134056324870561309587312510981741890571340985632487563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510561309587319057134098525134588517356324870561309587312519852513458851735632487056130958731251632485632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125170561373190571340985251345885173563571340985251345885173563248705613");
-//        BigInteger a1 = new BigInteger("-851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510981741890571340985632487056130958731905713409852513458");
-//        BigInteger a2 = new BigInteger("-9587312510981741890571340985632487356358731905713409852513458851735670561309589587334095632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125185251373563587319034098525134588517356324870561375251345885173563248705613731903409852513458851735632487056137319057134098525134588517356357134098525134588515713409852513458851735645885173563248705613731905713409852513458851735631251098174189057134098563248705613340985251345885173563248705613731905713409852513458851735630934098525134588517356324563248705613095873125109817418905713563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312515632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125156324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251409856324870561309587319057134098525134588517356324870561309587312518705613731905713409852513458851735635873190571340985255632485632487056130958731251098174189057134098563248705613095873190571340985632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125152513456324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251588517356324870561309587312517056130958731251098174189057134098556324870561309587312510981741890571340985632487056130958731905713409852513458851735632487056130958731251632487056130958731905713409852513458851735632487056130958731251134588517356324870561373190340985263248705613095873125109817418905713409856351345885175632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125135563248705613095873125109817418905713409856324870561309587319057134056324870561309587312510981741890571340985632487563248705613095873125109817418905713409856324870561309587319057134098525134588517356324870561309587312510561309587319057134098525134588517356324870561309587312519852513458851735632487056130958731251632485632487056130958731251098174189057134098563248705613095873190571340985251345885173563248705613095873125170561373190571340985251345885173563571340985251345885173563248705613");
-//
-//        long myStart = System.currentTimeMillis();
-//        System.out.println(b1.divide(b2));
-//        long myEnd = System.currentTimeMillis();
-//
-//        long start = System.currentTimeMillis();
-//        System.out.println(a1.divide(a2));
-//        long end = System.currentTimeMillis();
-//
-//        System.out.println("my algorithm's execution time: " + (myEnd - myStart));
-//        System.out.println("BigInteger's execution time: " + (end - start));
-//
-//        String s1 = "8517309817418905713409856324870561309587312513458y134876157834651873456391785613875632849756395876435872652438795689743265184975621389756389457658913659834756y134897564871605789563045610345671056341708561y3480756134805761304857657861438057648157365740356843765170348563287045643870156438756382176587341651849623846021893472103895631490856735783180563218075689437561308563297546380563145610356739847563247856340856712398576324056732489756238497563786518051875346598723645897546257823569618032765y7341085612037029137561023561705358947563248956347856985612809326401895109856984756234857623489576103845632748562398475608457623984756324785608457619845761234985762348975634280756329857639845679382457618957632148761481746389231764872165871237456981753681923476589345765689345618756891765389274612983576289357689215762893457602156056013560560150000000005780587134573240857623984563485763187457634897568561871246812346783274563478568745368231851730981741890571340985632487056130958730000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000004651873456391785613875632849756395876435872652438795689743265184975621389756389457658913659834756y134897564871605789563045610345671056341708561y3480756134805761304857657861438057648157365740356843765170348563287045643870156438756382176587341651849623846021893472103895631490856735783180563218075689437561308563297546380563145610356739847563247856340856712398576324056732489756238497563786518051875346598723645897546257823569618032765y7341085612037029137561023561705358947563248956347856985612809326401895109856984756234857623489576103845632748562398475608457623984756324785608457619845761234985762348975634280756329857639845679382457618957632148761481746389231764872165871237456981753681923476589345765689345618756891765389274612983576289357689215762893457602156056013560560150000000005780587134573240857623984563485763187457634897568561871246812346783274563478568745368231479847156198576984387019357130294578431095234089576149057823408572340895710457670471309856130847651479847156198576984387019357130294578431095234089576149057823408572340895710457670471309856130847651";
-//        s1 = s1.replaceAll("\\D", "0");
-//        s1 = "-".concat(s1);
-//        String s2 = "851730981741890571340985632487056130958730000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000008517309817418905713409856324870561309587312513458y134876157834651873456391785613875632849756395876435872652438795689743265184975621389756389457658913659834756y134897564871605789563045610345671056341708561y3480756134805761304857657861438057648157365740356843765170348563287045643870156438756382176587341651849623846021893472103895631490856735783180563218075689437561308563297546380563145610356739847563247856340856712398576324056732489756238497563786518051875346598723645897546257823569618032765y7341085612037029137561023561705358947563248956347856985612809326401895109856984756234857623489576103845632748562398475608457623984756324785608457619845761234985762348975634280756329857639845679382457618957632148761481746389231764872165871237456981753681923476589345765689345618756891765389274612983576289357689215762893457602156056013560560150000000005780587134573240857623984563485763187457634897568561871246812346783274563478568745368231851730981741890571340985632487056130958730000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000004651873456391785613875632849756395876435872652438795689743265184975621389756389457658913659834756y134897564871605789563045610345671056341708561y3480756134805761304857657861438057648157365740356843765170348563287045643870156438756382176587341651849623846021893472103895631490856735783180563218075689437561308563297546380563145610356739847563247856340856712398576324056732489756238497563786518051875346598723645897546257823569618032765y73410856120370291375610235617053589475632489563478569856128093264018951098569847562348576234895761038456327485623984756084576239847563247856084576198457612349857623489756342807563298576398456793824576189576321487614817463892317648721658712374569817536819234765893457656893456187568917653892746129835762893576892157628934576021560560135605601500000000057805871345732408576239845634857631874576348975685618712468123467832745634785687453682314798471561985769843870193571302945784310952340895761490578234085723408957104576704713098561308476514798471561985769843870193571302945784310952340895761490578234085723408957104576704713098561308476510000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000004651873456391785613875632849756395876435872652438795689743265184975621389756389457658913659834756y134897564871605789563045610345671056341708561y3480756134805761304857657861438057648157365740356843765170348563287045643870156438756382176587341651849623846021893472103895631490856735783180563218075689437561308563297546380563145610356739847563247856340856712398576324056732489756238497563786518051875346598723645897546257823569618032765y7341085612037029137561023561705358947563248956347856985612809326401895109856984756234857623489576103845632748562398475608457623984756324785608457619845761234985762348975634280756329857639845679382457618957632148761481746389231764872165871237456981753681923476589345765689345618756891765389274612983576289357689215762893457602156056013560560150000000005780587134573240857623984563485763187457634897568561871246812346783274563478568745368231479847156198576984387019357130294578431095234089576149057823408572340895710457670471309856130847651";
-//        s2 = s2.replaceAll("\\D", "0");
-//
-//        long myStart1 = System.currentTimeMillis();
-//        BigNumber bigNumber = BigNumber.fromString(s1).multiply(BigNumber.fromString(s2));
-//        long myEnd1 = System.currentTimeMillis();
-//        System.out.println(bigNumber);
-//        long start1 = System.currentTimeMillis();
-//        BigInteger bigInteger = new BigInteger(s1).multiply(new BigInteger(s2));
-//        long end1 = System.currentTimeMillis();
-//        System.out.println(bigInteger);
-//        System.out.println(bigInteger.compareTo(new BigInteger(bigNumber.toString())));
-//        System.out.println("my algorithm's execution time: " + (myEnd1 - myStart1));
-//        System.out.println("BigInteger's execution time: " + (end1 - start1));
-//
 //        byte[] by = new byte[] {1, 2, 3, 4, 5};
 //        BigNumber fba = BigNumber.fromByteArray(by, Sign.NEGATIVE);
 //        System.out.println(fba);
@@ -104,15 +87,510 @@ public class Main {
                 flag = true;
                 errorIn  = "add";
             }
+            if(!a.square().toString().equals(x.multiply(x).toString())){
+                flag = true;
+                errorIn  = "square";
+            }
+            if(!a.pow(i % 13).toString().equals(x.pow(i % 13).toString())){
+                flag = true;
+                errorIn  = "pow";
+            }
             if(flag){
                 System.out.println("num1: "+ b1.toString());
                 System.out.println("num2: "+ b2.toString());
                 System.out.println("operation: "+errorIn);
             }
         }
+
+        // operands this long are multiplied through number-theoretic transforms
+        for(int i=0;i<5;i++){
+            b1.setLength(0);
+            b2.setLength(0);
+
+            int n = 10000 + (int)(Math.random() * 50000);
+            int m = 10000 + (int)(Math.random() * 50000);
+            if(i%2==0)
+                b1.append("-");
+            for(int j=0;j<n;j++){
+                b1.append((int)(Math.random()*10));
+            }
+            for(int j=0;j<m;j++){
+                b2.append((int)(Math.random()*10));
+            }
+
+            BigNumber a = BigNumber.fromString(b1.toString());
+            BigNumber b = BigNumber.fromString(b2.toString());
+            BigInteger x = new BigInteger(b1.toString());
+            BigInteger y = new BigInteger(b2.toString());
+
+            if(!a.multiply(b).toString().equals(x.multiply(y).toString())){
+                flag = true;
+                System.out.println("operation: multiply ("+n+" x "+m+" digits)");
+            }
+            if(!a.parallelMultiply(b).toString().equals(x.multiply(y).toString())){
+                flag = true;
+                System.out.println("operation: parallelMultiply ("+n+" x "+m+" digits)");
+            }
+            StringBuilder streamed = new StringBuilder();
+            try {
+                a.writeTo(streamed);
+            }catch (IOException ex){
+                streamed.append(ex);
+            }
+            if(!streamed.toString().equals(x.toString())){
+                flag = true;
+                System.out.println("operation: writeTo ("+n+" digits)");
+            }
+            try (OffHeapNumber u = OffHeapNumber.of(a); OffHeapNumber v = OffHeapNumber.of(b);
+                 OffHeapNumber sum = u.add(v); OffHeapNumber product = u.multiply(v)) {
+                if(!sum.toString().equals(x.add(y).toString()) || !product.toBigNumber().equals(a.multiply(b))){
+                    flag = true;
+                    System.out.println("operation: OffHeapNumber ("+n+" x "+m+" digits)");
+                }
+            }
+        }
+
+        // RSA sized modular exponentiation, odd moduli go through the Montgomery path
+        for(int i=0;i<5;i++){
+            BigInteger m = new BigInteger(2048, new java.util.Random()).setBit(2047);
+            if(i%2==0)
+                m = m.setBit(0);
+            BigInteger x = new BigInteger(2047, new java.util.Random());
+            BigInteger e = new BigInteger(2047, new java.util.Random());
+
+            BigNumber mod = BigNumber.fromString(m.toString());
+            BigNumber a = BigNumber.fromString(x.toString());
+            BigNumber exp = BigNumber.fromString(e.toString());
+
+            if(!a.modPow(exp, mod).toString().equals(x.modPow(e, m).toString())){
+                flag = true;
+                System.out.println("operation: modPow (modulus "+m+")");
+            }
+        }
+        // batch operations against a left fold of BigInteger
+        BigInteger f = BigInteger.ONE;
+        for(int i=2;i<=3000;i++)
+            f = f.multiply(BigInteger.valueOf(i));
+        if(!BigNumber.factorial(3000).toString().equals(f.toString())){
+            flag = true;
+            System.out.println("operation: factorial (3000)");
+        }
+        BigInteger c = BigInteger.ONE;
+        for(int i=0;i<700;i++)
+            c = c.multiply(BigInteger.valueOf(2000 - i)).divide(BigInteger.valueOf(i + 1));
+        if(!BigNumber.binomial(2000, 700).toString().equals(c.toString())){
+            flag = true;
+            System.out.println("operation: binomial (2000, 700)");
+        }
+
+        // division with mixed signs; divisors of 160 limbs and more with quotients
+        // of 80 limbs and more go through Burnikel-Ziegler
+        for(int i=0;i<20;i++){
+            java.util.Random random = new java.util.Random();
+            int n = i == 0 ? 30000 : 1 + random.nextInt(30000);
+            int m = i == 0 ? 10000 : 1 + random.nextInt(Math.min(n, 12000));
+            BigInteger x = new BigInteger((int)(n * 3.33), random);
+            BigInteger y = new BigInteger((int)(m * 3.33), random).add(BigInteger.ONE);
+            if(random.nextBoolean())
+                x = x.negate();
+            if(random.nextBoolean())
+                y = y.negate();
+            BigNumber a = BigNumber.fromString(x.toString());
+            BigNumber b = BigNumber.fromString(y.toString());
+            BigNumber[] qr = a.divideAndRemainder(b);
+            BigInteger[] expected = x.divideAndRemainder(y);
+            if(!qr[0].toString().equals(expected[0].toString()) || !qr[1].toString().equals(expected[1].toString())
+                    || !a.remainder(b).toString().equals(expected[1].toString())
+                    || !a.mod(b.abs()).toString().equals(x.mod(y.abs()).toString())){
+                flag = true;
+                System.out.println("operation: divideAndRemainder ("+n+" / "+m+" digits)");
+            }
+        }
+
+        // a reused Divisor; divisors of 1000 limbs and more go through Barrett with
+        // the Newton reciprocal, dividends over 2n limbs n limbs at a time
+        for(int i=0;i<4;i++){
+            java.util.Random random = new java.util.Random();
+            int m = 9000 + random.nextInt(3000);
+            BigInteger y = new BigInteger((int)(m * 3.33), random).setBit((int)(m * 3.33));
+            if(i%2==1)
+                y = y.negate();
+            Divisor divisor = new Divisor(BigNumber.fromString(y.toString()));
+            // at most 2n limbs and above
+            for(int n : new int[] {m + random.nextInt(m), 2 * m + 100 + random.nextInt(3 * m)}){
+                BigInteger x = new BigInteger((int)(n * 3.33), random);
+                if(random.nextBoolean())
+                    x = x.negate();
+                BigNumber a = BigNumber.fromString(x.toString());
+                BigNumber[] qr = divisor.divideAndRemainder(a);
+                BigInteger[] expected = x.divideAndRemainder(y);
+                if(!qr[0].toString().equals(expected[0].toString()) || !qr[1].toString().equals(expected[1].toString())
+                        || !divisor.divide(a).toString().equals(expected[0].toString())
+                        || !divisor.remainder(a).toString().equals(expected[1].toString())){
+                    flag = true;
+                    System.out.println("operation: Divisor ("+n+" / "+m+" digits)");
+                }
+            }
+        }
+
+        // the streaming parse entry points: a reader, a file and a range of a string
+        try {
+            java.util.Random random = new java.util.Random();
+            StringBuilder big = new StringBuilder("-000");
+            for(int i=0;i<1000000;i++)
+                big.append((char)('0' + random.nextInt(10)));
+            for(String text : new String[] {"-000123456789012345678901234567890", "+0000", "42", big.toString()}){
+                BigNumber expected = BigNumber.fromString(text);
+                Path file = Files.createTempFile("number", ".txt");
+                Files.writeString(file, text);
+                if(!BigNumber.fromReader(new java.io.StringReader(text)).equals(expected)
+                        || !BigNumber.fromFile(file).equals(expected)
+                        || !BigNumber.fromString("[" + text + "]", 1, text.length() + 1).equals(expected)
+                        || (text.length() < 100 && !expected.toString().equals(new BigInteger(text).toString()))){
+                    flag = true;
+                    System.out.println("operation: fromReader/fromFile ("+text.length()+" chars)");
+                }
+                Files.delete(file);
+            }
+
+            // the same messages as fromString, with the context from the first digit
+            // to a few characters past the first invalid one
+            for(String text : new String[] {"", "-", " - ", "12a", "-12a", " 12a", " - 5", "123456789 1", "12 3",
+                    "12a  ", "12a   b", "+-5", "0012a", "1\t\t\t\t\t2"}){
+                String expected = null;
+                try {
+                    BigNumber.fromString(text);
+                }catch (NumberFormatException ex){
+                    expected = ex.getMessage();
+                }
+                Path file = Files.createTempFile("number", ".txt");
+                Files.writeString(file, text);
+                String[] messages = new String[3];
+                try { BigNumber.fromReader(new java.io.StringReader(text)); }catch (NumberFormatException ex){ messages[0] = ex.getMessage(); }
+                try { BigNumber.fromFile(file); }catch (NumberFormatException ex){ messages[1] = ex.getMessage(); }
+                try { BigNumber.fromString("[" + text + "]", 1, text.length() + 1); }catch (NumberFormatException ex){ messages[2] = ex.getMessage(); }
+                Files.delete(file);
+                if(expected == null || !Arrays.equals(messages, new String[] {expected, expected, expected})){
+                    flag = true;
+                    System.out.println("operation: malformed input (\""+text+"\": "+expected+" vs "+Arrays.toString(messages)+")");
+                }
+            }
+        }catch (IOException ex){
+            flag = true;
+            System.out.println("operation: fromReader/fromFile ("+ex+")");
+        }
+
+        // a chain of in-place MutableBigNumber operations against BigInteger, from
+        // long-sized values to limbs and back across zero
+        for(int i=0;i<20;i++){
+            java.util.Random random = new java.util.Random();
+            MutableBigNumber acc = new MutableBigNumber(random.nextInt());
+            BigInteger expected = new BigInteger(acc.toString());
+            for(int j=0;j<300;j++){
+                long v = random.nextBoolean() ? random.nextInt() : random.nextLong();
+                BigInteger w = new BigInteger(random.nextInt(200) + 1, random);
+                if(random.nextBoolean())
+                    w = w.negate();
+                int step = random.nextInt(8);
+                switch(step){
+                    case 0: acc.add(v); expected = expected.add(BigInteger.valueOf(v)); break;
+                    case 1: acc.subtract(v); expected = expected.subtract(BigInteger.valueOf(v)); break;
+                    case 2: acc.add(BigNumber.fromString(w.toString())); expected = expected.add(w); break;
+                    // past the current value, so the sign changes
+                    case 3: w = expected.add(w); acc.subtract(BigNumber.fromString(w.toString())); expected = expected.subtract(w); break;
+                    case 4: v = random.nextInt(3) == 0 ? v : v % 1000; acc.multiply(v); expected = expected.multiply(BigInteger.valueOf(v)); break;
+                    case 5: acc.multiplyAdd(v % 100000, v); expected = expected.multiply(BigInteger.valueOf(v % 100000)).add(BigInteger.valueOf(v)); break;
+                    case 6: acc.addProduct(BigNumber.fromString(w.toString()), v); expected = expected.add(w.multiply(BigInteger.valueOf(v))); break;
+                    default:
+                        int n = random.nextInt(41) - 20;
+                        acc.shiftDecimal(n);
+                        expected = n >= 0 ? expected.multiply(BigInteger.TEN.pow(n)) : expected.divide(BigInteger.TEN.pow(-n));
+                }
+                if(!acc.toString().equals(expected.toString()) || acc.signum() != expected.signum()
+                        || acc.compareTo(BigNumber.fromString(expected.toString())) != 0){
+                    flag = true;
+                    System.out.println("operation: MutableBigNumber (step "+step+", expected "+expected+", got "+acc+")");
+                    break;
+                }
+                // keep it between long-sized values and a few hundred digits
+                if(expected.bitLength() > 1000){
+                    acc.shiftDecimal(-250);
+                    expected = expected.divide(BigInteger.TEN.pow(250));
+                }
+            }
+        }
+        if(!new MutableBigNumber(BigNumber.fromString("-1" + "0".repeat(100))).shiftDecimal(Integer.MIN_VALUE).isZero()){
+            flag = true;
+            System.out.println("operation: MutableBigNumber shiftDecimal (Integer.MIN_VALUE)");
+        }
+
+        // binary form and serialization round trips
+        try {
+            java.util.Random random = new java.util.Random();
+            BigNumber[] values = {BigNumber.ZERO, BigNumber.fromLong(-7), BigNumber.fromLong(Long.MIN_VALUE),
+                    BigNumber.fromString(new BigInteger(3000, random).toString()),
+                    BigNumber.fromString(new BigInteger(3000, random).negate().toString())};
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            java.io.DataOutputStream data = new java.io.DataOutputStream(bytes);
+            for(BigNumber v : values){
+                if(!BigNumberCodec.decode(BigNumberCodec.encode(v)).equals(v)){
+                    flag = true;
+                    System.out.println("operation: encode/decode ("+v+")");
+                }
+            }
+            if(!Arrays.equals(BigNumberCodec.decodeAll(BigNumberCodec.encodeAll(values)), values)){
+                flag = true;
+                System.out.println("operation: encodeAll/decodeAll");
+            }
+
+            bytes.reset();
+            for(BigNumber v : values)
+                v.writeTo(data);
+            data.flush();
+            java.io.DataInputStream in = new java.io.DataInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()));
+            for(BigNumber v : values){
+                if(!BigNumber.readFrom(in).equals(v)){
+                    flag = true;
+                    System.out.println("operation: writeTo/readFrom DataOutput ("+v+")");
+                }
+            }
+
+            bytes.reset();
+            java.io.ObjectOutputStream objects = new java.io.ObjectOutputStream(bytes);
+            objects.writeObject(values);
+            objects.flush();
+            Object read = new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray())).readObject();
+            if(!(read instanceof BigNumber[]) || !Arrays.equals((BigNumber[]) read, values)){
+                flag = true;
+                System.out.println("operation: serialization");
+            }
+
+            // a zero top limb and a limb of 10^9
+            for(byte[] malformed : new byte[][] {{2, 0, 0, 0, 0}, {2, 0x3B, (byte) 0x9A, (byte) 0xCA, 0x00}}){
+                try {
+                    BigNumberCodec.decode(malformed);
+                    flag = true;
+                    System.out.println("operation: decode accepted "+Arrays.toString(malformed));
+                }catch (NumberFormatException ex){
+                    // rejected
+                }
+            }
+
+            // every proper prefix of a number and of an array
+            byte[] one = BigNumberCodec.encode(values[3]);
+            byte[] all = BigNumberCodec.encodeAll(values);
+            for(int n=0;n<all.length;n++){
+                try {
+                    if(n<one.length)
+                        BigNumberCodec.decode(Arrays.copyOf(one, n));
+                    BigNumberCodec.decodeAll(Arrays.copyOf(all, n));
+                    flag = true;
+                    System.out.println("operation: decode accepted a truncated input ("+n+" bytes)");
+                }catch (NumberFormatException ex){
+                    // rejected
+                }
+            }
+        }catch (IOException | ClassNotFoundException ex){
+            flag = true;
+            System.out.println("operation: binary form ("+ex+")");
+        }
+
+        // gcd and primality against BigInteger
+        for(int i=0;i<200;i++){
+            java.util.Random random = new java.util.Random();
+            BigInteger g = BigInteger.valueOf(1 + random.nextInt(1000));
+            BigInteger x = new BigInteger(1 + random.nextInt(1000), random).multiply(g);
+            BigInteger y = new BigInteger(1 + random.nextInt(1000), random).multiply(g);
+            if(!BigNumber.fromString(x.toString()).gcd(BigNumber.fromString(y.toString())).toString().equals(x.gcd(y).toString())){
+                flag = true;
+                System.out.println("operation: gcd ("+x+", "+y+")");
+            }
+            BigInteger z = new BigInteger(2 + random.nextInt(300), random);
+            if(BigNumber.fromString(z.toString()).isProbablePrime() != z.isProbablePrime(50)){
+                flag = true;
+                System.out.println("operation: isProbablePrime ("+z+")");
+            }
+        }
+
+        // roots and reciprocals against BigInteger
+        for(int i=0;i<200;i++){
+            java.util.Random random = new java.util.Random();
+            BigInteger x = new BigInteger(1 + random.nextInt(5000), random);
+            BigNumber a = BigNumber.fromString(x.toString());
+            if(!a.sqrt().toString().equals(x.sqrt().toString())){
+                flag = true;
+                System.out.println("operation: sqrt ("+x+")");
+            }
+            int n = 3 + random.nextInt(20);
+            BigInteger root = new BigInteger(a.nthRoot(n).toString());
+            if(root.pow(n).compareTo(x) > 0 || root.add(BigInteger.ONE).pow(n).compareTo(x) <= 0){
+                flag = true;
+                System.out.println("operation: nthRoot ("+x+", "+n+")");
+            }
+            int digits = random.nextInt(3000);
+            if(x.signum() != 0 && !a.reciprocal(digits).toString().equals(BigInteger.TEN.pow(digits).divide(x).toString())){
+                flag = true;
+                System.out.println("operation: reciprocal ("+x+", "+digits+")");
+            }
+        }
+
+        // fused multiply-add and dot products against BigInteger
+        for(int i=0;i<200;i++){
+            java.util.Random random = new java.util.Random();
+            int n = random.nextInt(10);
+            BigNumber[] a = new BigNumber[n];
+            BigNumber[] b = new BigNumber[n];
+            BigInteger expected = BigInteger.ZERO;
+            for(int j=0;j<n;j++){
+                BigInteger x = new BigInteger(1 + random.nextInt(2000), random);
+                BigInteger y = new BigInteger(1 + random.nextInt(2000), random);
+                if(random.nextBoolean())
+                    x = x.negate();
+                a[j] = BigNumber.fromString(x.toString());
+                b[j] = BigNumber.fromString(y.toString());
+                expected = expected.add(x.multiply(y));
+            }
+            if(!BigNumber.dotProduct(a, b).toString().equals(expected.toString())){
+                flag = true;
+                System.out.println("operation: dotProduct ("+n+" terms)");
+            }
+            if(n > 1){
+                BigInteger x = new BigInteger(a[0].toString());
+                BigInteger y = new BigInteger(b[0].toString());
+                BigInteger z = new BigInteger(a[1].toString());
+                if(!a[0].multiplyAdd(b[0], a[1]).toString().equals(x.multiply(y).add(z).toString())
+                        || !a[0].multiplySubtract(b[0], a[1]).toString().equals(x.multiply(y).subtract(z).toString())){
+                    flag = true;
+                    System.out.println("operation: multiplyAdd ("+x+", "+y+", "+z+")");
+                }
+            }
+        }
+
+        // BigInteger and two's complement conversions, both ways
+        for(int i=0;i<200;i++){
+            java.util.Random random = new java.util.Random();
+            BigInteger x = new BigInteger(1 + random.nextInt(i < 10 ? 200000 : 5000), random);
+            if(random.nextBoolean())
+                x = x.negate();
+            if(random.nextInt(4) == 0)
+                x = x.shiftLeft(random.nextInt(100));
+            BigNumber a = BigNumber.fromString(x.toString());
+            if(!a.toBigInteger().equals(x) || !Arrays.equals(a.toByteArray(), x.toByteArray())
+                    || !BigNumber.fromBigInteger(x).equals(a) || !BigNumber.fromTwosComplement(x.toByteArray()).equals(a)){
+                flag = true;
+                System.out.println("operation: BigInteger conversion ("+x+")");
+            }
+        }
+
+        // expressions, with the repeated subexpression evaluated once
+        try {
+            java.util.Random random = new java.util.Random();
+            BigInteger x = new BigInteger(1000, random);
+            BigInteger y = new BigInteger(500, random).add(BigInteger.ONE);
+            ExpressionEngine engine = new ExpressionEngine();
+            String text = "(" + x + " * " + y + " + 1) ^ 3 % (" + x + " * " + y + " + 1 - " + y + ") - -" + y;
+            BigInteger z = x.multiply(y).add(BigInteger.ONE);
+            if(!engine.evaluate(text).toString().equals(z.pow(3).remainder(z.subtract(y)).add(y).toString())){
+                flag = true;
+                System.out.println("operation: expression ("+text+")");
+            }
+        }catch (ParseException ex){
+            flag = true;
+            System.out.println("operation: expression ("+ex.getMessage()+")");
+        }
+
+        // an off-heap number larger than the heap, in a JVM with -Xmx24m:
+        // 40M ones, doubled, have to come out as 40M twos
+        try {
+            Path ones = Files.createTempFile("ones", ".txt");
+            byte[] chunk = new byte[1 << 20];
+            Arrays.fill(chunk, (byte) '1');
+            try (java.io.OutputStream out = Files.newOutputStream(ones)) {
+                for(int i=0;i<40;i++)
+                    out.write(chunk);
+            }
+            Process child = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xmx24m", "-cp", System.getProperty("java.class.path"), "test.Main", "offheap", ones.toString())
+                    .inheritIO().start();
+            if(child.waitFor() != 0){
+                flag = true;
+                System.out.println("operation: OffHeapNumber under -Xmx24m (exit "+child.exitValue()+")");
+            }
+            Files.delete(ones);
+        }catch (IOException | InterruptedException ex){
+            flag = true;
+            System.out.println("operation: OffHeapNumber under -Xmx24m ("+ex+")");
+        }
+
+        // RSA file round trip through the block pipeline
+        try {
+            java.util.Random random = new java.util.Random();
+            RsaPrivateKey key = RsaPrivateKey.generate(512, random);
+
+            byte[] data = new byte[20000 + random.nextInt(20000)];
+            random.nextBytes(data);
+            Path plain = Files.createTempFile("plain", ".bin");
+            Path cipher = Files.createTempFile("cipher", ".bin");
+            Path decrypted = Files.createTempFile("decrypted", ".bin");
+            Files.write(plain, data);
+
+            RsaFileCipher fileCipher = new RsaFileCipher();
+            fileCipher.encrypt(key.getPublicKey(), plain, cipher);
+            fileCipher.decrypt(key, cipher, decrypted);
+            if(!Arrays.equals(data, Files.readAllBytes(decrypted))){
+                flag = true;
+                System.out.println("operation: RSA file round trip ("+data.length+" bytes)");
+            }
+            // the random padding makes a second encryption differ
+            byte[] first = Files.readAllBytes(cipher);
+            fileCipher.encrypt(key.getPublicKey(), plain, cipher);
+            if(Arrays.equals(first, Files.readAllBytes(cipher))){
+                flag = true;
+                System.out.println("operation: RSA encryption is deterministic");
+            }
+
+            Files.delete(plain);
+            Files.delete(cipher);
+            Files.delete(decrypted);
+        }catch (IOException ex){
+            flag = true;
+            System.out.println("operation: RSA file round trip ("+ex+")");
+        }
+
         if(!flag){
             System.out.println("Everything is Ok");
         }
 
     }
+
+    // run in the child JVM: the number in the file, all ones, doubled
+    private static boolean offHeapDoubling(Path file) {
+        try (OffHeapNumber x = OffHeapNumber.fromFile(file); OffHeapNumber y = x.add(x)) {
+            // digits that are 2 and digits that are not
+            final long[] count = new long[2];
+            y.writeTo(new Appendable() {
+                @Override
+                public Appendable append(CharSequence csq) {
+                    return append(csq, 0, csq.length());
+                }
+
+                @Override
+                public Appendable append(CharSequence csq, int start, int end) {
+                    for(int i=start;i<end;i++)
+                        append(csq.charAt(i));
+                    return this;
+                }
+
+                @Override
+                public Appendable append(char c) {
+                    count[c == '2' ? 0 : 1]++;
+                    return this;
+                }
+            });
+            return y.digitCount() == x.digitCount() && count[0] == x.digitCount() && count[1] == 0;
+        }catch (IOException | RuntimeException ex){
+            System.out.println(ex);
+            return false;
+        }
+    }
 }